@@ -79,10 +79,10 @@ import static org.apache.ignite.cache.query.IndexQueryCriteriaBuilder.gt;
  */
 public class CacheQueryExample {
     /** Organizations cache name. */
-    private static final String ORG_CACHE = CacheQueryExample.class.getSimpleName() + "Organizations";
+    public static final String ORG_CACHE = CacheQueryExample.class.getSimpleName() + "Organizations";
 
     /** Persons collocated with Organizations cache name. */
-    private static final String PERSON_CACHE = CacheQueryExample.class.getSimpleName() + "Persons";
+    public static final String PERSON_CACHE = CacheQueryExample.class.getSimpleName() + "Persons";
 
     static List<Person> personList = new ArrayList<>();
     /**
@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.bulk;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.mouse.ignite_test.CacheQueryExample;
+import com.mouse.ignite_test.cluster.ClusterHarness;
+import com.mouse.ignite_test.model.Person;
+import com.mouse.ignite_test.projection.Projection;
+import com.mouse.ignite_test.projection.ProjectionBatch;
+import com.mouse.ignite_test.projection.ProjectionQuery;
+import com.mouse.ignite_test.router.PersonQuery;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.Ignition;
+import org.apache.ignite.cache.affinity.AffinityKey;
+import org.apache.ignite.cache.query.ScanQuery;
+import org.apache.ignite.configuration.IgniteConfiguration;
+import org.apache.ignite.spi.communication.tcp.TcpCommunicationSpi;
+
+/**
+ * Compares salary updates through get and put with {@link PersonBulkUpdater}.
+ * <p>
+ * Server nodes and a client node run in this JVM and the client updates every person in each
+ * phase: 10% raise with {@code get}/{@code put} per key, with {@code getAll}/{@code putAll} batches,
+ * with {@link PersonUpdates#raiseSalary(double)}, then a conditional 5% raise and a field update.
+ * Expected salaries are tracked on the client and compared with the cache at the end.
+ * <p>
+ * Arguments (all optional, positional): persons (default {@code 1000000}), server nodes (default {@code 2}),
+ * batch size (default {@link PersonBulkUpdater#DFLT_BATCH_SIZE}).
+ */
+public class BulkUpdateBenchmark {
+    /** Salary raise in the main phases, percent. */
+    private static final double RAISE = 10;
+
+    /** Conditional raise, percent. */
+    private static final double LOW_RAISE = 5;
+
+    /** Max salary that gets the conditional raise. */
+    private static final double LOW_SALARY = 5000;
+
+    /**
+     * Executes benchmark.
+     *
+     * @param args Command line arguments, see class description.
+     */
+    public static void main(String[] args) {
+        int persons = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int servers = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        int batchSize = args.length > 2 ? Integer.parseInt(args[2]) : PersonBulkUpdater.DFLT_BATCH_SIZE;
+        int orgs = 100;
+
+        List<Ignite> nodes = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < servers; i++)
+                nodes.add(ClusterHarness.startNode("bulk-server-" + i));
+
+            IgniteConfiguration clientCfg = ClusterHarness.configuration("bulk-client").setClientMode(true);
+
+            Ignite client = Ignition.start(clientCfg);
+
+            nodes.add(client);
+
+            IgniteCache<AffinityKey<Long>, Person> cache =
+                client.getOrCreateCache(ClusterHarness.personCacheConfiguration());
+
+            ClusterHarness.loadPersons(client, persons, orgs, 42);
+
+            TcpCommunicationSpi comm = (TcpCommunicationSpi)clientCfg.getCommunicationSpi();
+
+            List<AffinityKey<Long>> keys = new ArrayList<>(persons);
+
+            for (long id = 1; id <= persons; id++)
+                keys.add(new AffinityKey<>(id, 1 + id % orgs));
+
+            double[] expected = salaries(client, persons);
+            double mult = 1 + RAISE / 100;
+            double lowMult = 1 + LOW_RAISE / 100;
+
+            System.out.println();
+
+            phase("get/put per key", persons, comm, () -> {
+                for (AffinityKey<Long> key : keys) {
+                    Person p = cache.get(key);
+
+                    p.salary *= mult;
+
+                    cache.put(key, p);
+                }
+            });
+
+            for (int i = 1; i <= persons; i++)
+                expected[i] *= mult;
+
+            phase("getAll/putAll, batch " + batchSize, persons, comm, () -> {
+                for (int from = 0; from < persons; from += batchSize) {
+                    Set<AffinityKey<Long>> batch = new HashSet<>(keys.subList(from, Math.min(from + batchSize, persons)));
+
+                    Map<AffinityKey<Long>, Person> vals = cache.getAll(batch);
+
+                    for (Person p : vals.values())
+                        p.salary *= mult;
+
+                    cache.putAll(vals);
+                }
+            });
+
+            for (int i = 1; i <= persons; i++)
+                expected[i] *= mult;
+
+            PersonBulkUpdater updater = new PersonBulkUpdater(client, batchSize, PersonBulkUpdater.DFLT_MAX_IN_FLIGHT);
+
+            List<BulkUpdateResult<AffinityKey<Long>>> results = new ArrayList<>();
+
+            phase("invokeAll raiseSalary, batch " + batchSize, persons, comm,
+                () -> results.add(updater.update(keys, PersonUpdates.raiseSalary(RAISE))));
+
+            for (int i = 1; i <= persons; i++)
+                expected[i] *= mult;
+
+            phase("invokeAll when salary <= " + LOW_SALARY, persons, comm, () -> results.add(updater.update(keys,
+                PersonUpdates.when(new PersonQuery().salary(0, LOW_SALARY), PersonUpdates.raiseSalary(LOW_RAISE)))));
+
+            long lowCnt = 0;
+
+            for (int i = 1; i <= persons; i++) {
+                // Zero salary matches but is left as is.
+                if (expected[i] <= LOW_SALARY && expected[i] != 0) {
+                    expected[i] *= lowMult;
+
+                    lowCnt++;
+                }
+            }
+
+            phase("invokeAll set lastName", persons, comm,
+                () -> results.add(updater.update(keys, PersonUpdates.set("lastName", "Smith"))));
+
+            for (BulkUpdateResult<AffinityKey<Long>> res : results) {
+                if (res.processed() != persons || !res.failures().isEmpty())
+                    throw new IllegalStateException("Bulk update failed: " + res);
+            }
+
+            if (results.get(1).changed() != lowCnt)
+                throw new IllegalStateException("Conditional update changed " + results.get(1).changed() +
+                    " persons, expected " + lowCnt);
+
+            double[] actual = salaries(client, persons);
+
+            for (int i = 1; i <= persons; i++) {
+                if (actual[i] != expected[i])
+                    throw new IllegalStateException("Unexpected salary of person " + i + ": " + actual[i] +
+                        " != " + expected[i]);
+            }
+
+            if (!"Smith".equals(cache.get(keys.get(0)).lastName))
+                throw new IllegalStateException("Last name is not updated: " + cache.get(keys.get(0)));
+
+            System.out.println(">>> All salaries match expected values, results: " + results);
+        }
+        finally {
+            for (int i = nodes.size() - 1; i >= 0; i--)
+                nodes.get(i).close();
+        }
+    }
+
+    /**
+     * @param name Phase name.
+     * @param updates Number of updates.
+     * @param comm Client communication SPI.
+     * @param phase Phase.
+     */
+    private static void phase(String name, int updates, TcpCommunicationSpi comm, Runnable phase) {
+        long sent = comm.getSentBytesCount();
+        long received = comm.getReceivedBytesCount();
+        long start = System.nanoTime();
+
+        phase.run();
+
+        long time = System.nanoTime() - start;
+
+        System.out.printf(">>> %-40s %,10.0f updates/s, %,8.1f ms, client sent %,13d B, received %,13d B%n", name,
+            updates * 1e9 / time, time / 1e6, comm.getSentBytesCount() - sent, comm.getReceivedBytesCount() - received);
+    }
+
+    /**
+     * @param ignite Ignite.
+     * @param persons Number of persons.
+     * @return Salaries indexed by person ID.
+     */
+    private static double[] salaries(Ignite ignite, int persons) {
+        double[] res = new double[persons + 1];
+
+        for (ProjectionBatch b : ProjectionQuery.execute(ignite, CacheQueryExample.PERSON_CACHE, new ScanQuery<>(),
+            new Projection().longField("id").doubleField("salary"))) {
+            long[] ids = b.longs(0);
+            double[] salaries = b.doubles(1);
+
+            for (int i = 0; i < b.size(); i++)
+                res[(int)ids[i]] = salaries[i];
+        }
+
+        return res;
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.bulk;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Outcome of a bulk update. Keys are processed independently: a failed key or batch does not
+ * roll back or stop the others.
+ *
+ * @param <K> Key type.
+ */
+public class BulkUpdateResult<K> {
+    /** Keys processed without error. */
+    private long processed;
+
+    /** Keys the update changed. */
+    private long changed;
+
+    /** Keys processed without error, but not known to be changed or not. */
+    private long unknown;
+
+    /** Failed keys. */
+    private final Map<K, Throwable> failures = new HashMap<>();
+
+    /** Failed keys that may have been updated nevertheless. */
+    private final Set<K> maybeApplied = new HashSet<>();
+
+    /**
+     * @param processed Keys processed without error.
+     * @param changed Keys changed.
+     * @param unknown Keys processed without error whose outcome is not reported.
+     */
+    synchronized void onProcessed(long processed, long changed, long unknown) {
+        this.processed += processed;
+        this.changed += changed;
+        this.unknown += unknown;
+    }
+
+    /**
+     * @param key Key.
+     * @param err Error.
+     * @param maybeApplied Whether the update may have been applied to the key before the error.
+     */
+    synchronized void onFailed(K key, Throwable err, boolean maybeApplied) {
+        failures.put(key, err);
+
+        if (maybeApplied)
+            this.maybeApplied.add(key);
+    }
+
+    /**
+     * @return Number of keys processed without error, including missing, unchanged and {@link #unknown()} ones.
+     */
+    public synchronized long processed() {
+        return processed;
+    }
+
+    /**
+     * @return Number of keys the update is known to have changed.
+     */
+    public synchronized long changed() {
+        return changed;
+    }
+
+    /**
+     * @return Number of keys processed without error in a batch that failed partially. The cache does
+     * not report individual results of such a batch, so these keys may or may not have been changed.
+     */
+    public synchronized long unknown() {
+        return unknown;
+    }
+
+    /**
+     * @return Failed keys with errors.
+     */
+    public synchronized Map<K, Throwable> failures() {
+        return Collections.unmodifiableMap(new HashMap<>(failures));
+    }
+
+    /**
+     * @return Failed keys of batches that failed as a whole after they were sent. The update may or
+     * may not have been applied to these keys. Other failed keys were certainly not updated.
+     */
+    public synchronized Set<K> maybeApplied() {
+        return Collections.unmodifiableSet(new HashSet<>(maybeApplied));
+    }
+
+    /** {@inheritDoc} */
+    @Override public synchronized String toString() {
+        return "BulkUpdateResult [processed=" + processed +
+            ", changed=" + changed +
+            ", unknown=" + unknown +
+            ", failed=" + failures.size() +
+            ", maybeApplied=" + maybeApplied.size() + ']';
+    }
+}
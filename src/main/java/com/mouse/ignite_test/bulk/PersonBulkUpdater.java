@@ -0,0 +1,248 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.bulk;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import javax.cache.processor.EntryProcessorException;
+import javax.cache.processor.EntryProcessorResult;
+
+import com.mouse.ignite_test.CacheQueryExample;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.IgniteException;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.cache.CachePartialUpdateException;
+import org.apache.ignite.cache.affinity.AffinityKey;
+import org.apache.ignite.cluster.ClusterNode;
+import org.apache.ignite.lang.IgniteFuture;
+
+/**
+ * Applies {@link PersonUpdates} to many persons with {@code invokeAll}.
+ * <p>
+ * Keys are grouped by their primary node and sorted by organization and person ID, so every
+ * {@code invokeAll} batch goes to a single node and keys are always visited in the same order,
+ * which keeps lock acquisition deadlock free and contention low if the cache is transactional.
+ * Batches are sent asynchronously, round robin over nodes, with a bounded number in flight.
+ * <p>
+ * Failures are partial: a key whose processor threw, or that the cache could not update, is
+ * reported in {@link BulkUpdateResult#failures()} and every other key is still updated. If the cache
+ * could not update some keys of a batch, the other keys of the batch are counted in
+ * {@link BulkUpdateResult#unknown()}, as the cache does not report whether they were changed.
+ * If a batch fails as a whole after it was sent, for example on a topology change, its keys are
+ * failed but also reported in {@link BulkUpdateResult#maybeApplied()}, since some of them may have
+ * been updated; only keys of a batch that could not be sent are certainly left as they were.
+ */
+public class PersonBulkUpdater {
+    /** Default keys per {@code invokeAll}. */
+    public static final int DFLT_BATCH_SIZE = 1024;
+
+    /** Default max batches in flight. */
+    public static final int DFLT_MAX_IN_FLIGHT = 8;
+
+    /** Key order: organization, then person. */
+    private static final Comparator<AffinityKey<Long>> KEY_ORDER = (k1, k2) -> {
+        int res = Long.compare(k1.<Long>affinityKey(), k2.<Long>affinityKey());
+
+        return res != 0 ? res : Long.compare(k1.key(), k2.key());
+    };
+
+    /** Ignite. */
+    private final Ignite ignite;
+
+    /** Persons cache in keep binary mode. */
+    private final IgniteCache<Object, BinaryObject> cache;
+
+    /** Keys per batch. */
+    private final int batchSize;
+
+    /** Max batches in flight. */
+    private final int maxInFlight;
+
+    /**
+     * @param ignite Ignite.
+     */
+    public PersonBulkUpdater(Ignite ignite) {
+        this(ignite, DFLT_BATCH_SIZE, DFLT_MAX_IN_FLIGHT);
+    }
+
+    /**
+     * @param ignite Ignite.
+     * @param batchSize Keys per {@code invokeAll}.
+     * @param maxInFlight Max batches in flight.
+     */
+    public PersonBulkUpdater(Ignite ignite, int batchSize, int maxInFlight) {
+        this.ignite = ignite;
+        this.batchSize = batchSize;
+        this.maxInFlight = maxInFlight;
+
+        cache = ignite.cache(CacheQueryExample.PERSON_CACHE).withKeepBinary();
+    }
+
+    /**
+     * Applies update to every key and waits for completion.
+     *
+     * @param keys Person keys.
+     * @param update Update.
+     * @return Result.
+     */
+    public BulkUpdateResult<AffinityKey<Long>> update(Collection<AffinityKey<Long>> keys, PersonUpdates.Update update) {
+        BulkUpdateResult<AffinityKey<Long>> res = new BulkUpdateResult<>();
+
+        List<List<Set<AffinityKey<Long>>>> perNode = new ArrayList<>();
+
+        for (Map.Entry<ClusterNode, Collection<AffinityKey<Long>>> e :
+            ignite.<AffinityKey<Long>>affinity(CacheQueryExample.PERSON_CACHE).mapKeysToNodes(keys).entrySet())
+            perNode.add(batches(e.getValue()));
+
+        Semaphore inFlight = new Semaphore(maxInFlight);
+
+        try {
+            for (int i = 0, left = perNode.size(); left > 0; i++) {
+                left = 0;
+
+                for (List<Set<AffinityKey<Long>>> nodeBatches : perNode) {
+                    if (i >= nodeBatches.size())
+                        continue;
+
+                    left++;
+
+                    inFlight.acquire();
+
+                    submit(nodeBatches.get(i), update, res, inFlight);
+                }
+            }
+
+            // All permits are back once the last batch completes.
+            inFlight.acquire(maxInFlight);
+            inFlight.release(maxInFlight);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new IgniteException("Interrupted while updating persons.", e);
+        }
+
+        return res;
+    }
+
+    /**
+     * @param keys Keys of one node.
+     * @return Sorted keys split into batches.
+     */
+    private List<Set<AffinityKey<Long>>> batches(Collection<AffinityKey<Long>> keys) {
+        List<AffinityKey<Long>> sorted = new ArrayList<>(keys);
+
+        sorted.sort(KEY_ORDER);
+
+        List<Set<AffinityKey<Long>>> res = new ArrayList<>((sorted.size() + batchSize - 1) / batchSize);
+
+        for (int from = 0; from < sorted.size(); from += batchSize)
+            res.add(new LinkedHashSet<>(sorted.subList(from, Math.min(from + batchSize, sorted.size()))));
+
+        return res;
+    }
+
+    /**
+     * @param batch Batch.
+     * @param update Update.
+     * @param res Result to add batch outcome to.
+     * @param inFlight Permit to release when batch is done.
+     */
+    private void submit(Set<AffinityKey<Long>> batch, PersonUpdates.Update update,
+        BulkUpdateResult<AffinityKey<Long>> res, Semaphore inFlight) {
+        IgniteFuture<Map<Object, EntryProcessorResult<Boolean>>> fut;
+
+        try {
+            fut = cache.invokeAllAsync(batch, update);
+        }
+        catch (RuntimeException e) {
+            onBatchFailed(batch, e, false, res);
+
+            inFlight.release();
+
+            return;
+        }
+
+        fut.listen(f -> {
+            try {
+                Map<Object, EntryProcessorResult<Boolean>> results = f.get();
+
+                long changed = 0;
+                long ok = batch.size();
+
+                for (Map.Entry<Object, EntryProcessorResult<Boolean>> e : results.entrySet()) {
+                    try {
+                        if (Boolean.TRUE.equals(e.getValue().get()))
+                            changed++;
+                    }
+                    catch (EntryProcessorException err) {
+                        res.onFailed(key(e.getKey()), err, false);
+
+                        ok--;
+                    }
+                }
+
+                res.onProcessed(ok, changed, 0);
+            }
+            catch (CachePartialUpdateException e) {
+                for (Object key : e.failedKeys())
+                    res.onFailed(key(key), e, false);
+
+                // Results of the other keys are lost with the exception, and updates can't be safely repeated.
+                long ok = batch.size() - e.failedKeys().size();
+
+                res.onProcessed(ok, 0, ok);
+            }
+            catch (RuntimeException e) {
+                // The batch was sent, some processors may have run before it failed.
+                onBatchFailed(batch, e, true, res);
+            }
+            finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    /**
+     * @param key Key returned by keep binary cache.
+     * @return Key.
+     */
+    @SuppressWarnings("unchecked")
+    private static AffinityKey<Long> key(Object key) {
+        return (AffinityKey<Long>)(key instanceof BinaryObject ? ((BinaryObject)key).deserialize() : key);
+    }
+
+    /**
+     * @param batch Batch.
+     * @param err Error.
+     * @param maybeApplied Whether the update may have been applied to keys of the batch.
+     * @param res Result.
+     */
+    private static void onBatchFailed(Set<AffinityKey<Long>> batch, Throwable err, boolean maybeApplied,
+        BulkUpdateResult<AffinityKey<Long>> res) {
+        for (AffinityKey<Long> key : batch)
+            res.onFailed(key, err, maybeApplied);
+    }
+}
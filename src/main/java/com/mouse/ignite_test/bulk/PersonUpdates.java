@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.bulk;
+
+import javax.cache.processor.MutableEntry;
+
+import com.mouse.ignite_test.router.PersonQuery;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.cache.CacheEntryProcessor;
+
+/**
+ * Entry processors that modify persons in place, in binary form.
+ * <p>
+ * A processor is a few bytes on the wire and runs on the primary node of the key: the person
+ * is neither deserialized into a {@code Person} nor sent over the network. The binary object is
+ * still rebuilt as a whole, since {@code toBuilder().build()} serializes all fields again, so a
+ * processor returns the person as is, without rebuilding, when the update would not change it.
+ * Every processor returns {@code true} if it changed the entry and {@code false} if the entry is
+ * missing or was left as is. Processors must be used with a cache in keep binary mode.
+ */
+public final class PersonUpdates {
+    /**
+     * Utility class.
+     */
+    private PersonUpdates() {
+        // No-op.
+    }
+
+    /**
+     * @param pct Percent to raise salary by, may be negative.
+     * @return Processor multiplying salary by {@code 1 + pct / 100}.
+     */
+    public static Update raiseSalary(double pct) {
+        return new RaiseSalary(pct);
+    }
+
+    /**
+     * @param field Field name.
+     * @param val New value, of the field's type.
+     * @return Processor setting field to {@code val}.
+     */
+    public static Update set(String field, Object val) {
+        return new SetField(field, val);
+    }
+
+    /**
+     * @param cond Condition.
+     * @param update Update to apply to persons matching condition.
+     * @return Processor applying {@code update} only to persons that match {@code cond}.
+     */
+    public static Update when(PersonQuery cond, Update update) {
+        return new Conditional(cond, update);
+    }
+
+    /**
+     * Person update.
+     */
+    public abstract static class Update implements CacheEntryProcessor<Object, BinaryObject, Boolean> {
+        /** */
+        private static final long serialVersionUID = 0L;
+
+        /** {@inheritDoc} */
+        @Override public Boolean process(MutableEntry<Object, BinaryObject> entry, Object... args) {
+            BinaryObject p = entry.getValue();
+
+            if (p == null)
+                return false;
+
+            BinaryObject res = apply(p);
+
+            if (res == p)
+                return false;
+
+            entry.setValue(res);
+
+            return true;
+        }
+
+        /**
+         * @param p Person.
+         * @return Updated person or {@code p} itself if nothing changed.
+         */
+        protected abstract BinaryObject apply(BinaryObject p);
+    }
+
+    /**
+     * Raises salary by a percentage.
+     */
+    private static class RaiseSalary extends Update {
+        /** */
+        private static final long serialVersionUID = 0L;
+
+        /** Salary multiplier. */
+        private final double mult;
+
+        /**
+         * @param pct Percent.
+         */
+        RaiseSalary(double pct) {
+            mult = 1 + pct / 100;
+        }
+
+        /** {@inheritDoc} */
+        @Override protected BinaryObject apply(BinaryObject p) {
+            if (mult == 1)
+                return p;
+
+            double salary = p.<Double>field("salary");
+            double newSalary = salary * mult;
+
+            return newSalary == salary ? p : p.toBuilder().setField("salary", newSalary).build();
+        }
+
+        /** {@inheritDoc} */
+        @Override public String toString() {
+            return "RaiseSalary [mult=" + mult + ']';
+        }
+    }
+
+    /**
+     * Sets field value.
+     */
+    private static class SetField extends Update {
+        /** */
+        private static final long serialVersionUID = 0L;
+
+        /** Field name. */
+        private final String field;
+
+        /** Value. */
+        private final Object val;
+
+        /**
+         * @param field Field name.
+         * @param val Value.
+         */
+        SetField(String field, Object val) {
+            this.field = field;
+            this.val = val;
+        }
+
+        /** {@inheritDoc} */
+        @Override protected BinaryObject apply(BinaryObject p) {
+            Object old = p.field(field);
+
+            if (val == null ? old == null : val.equals(old))
+                return p;
+
+            return p.toBuilder().setField(field, val).build();
+        }
+
+        /** {@inheritDoc} */
+        @Override public String toString() {
+            return "SetField [field=" + field + ", val=" + val + ']';
+        }
+    }
+
+    /**
+     * Applies update to matching persons only.
+     */
+    private static class Conditional extends Update {
+        /** */
+        private static final long serialVersionUID = 0L;
+
+        /** Condition. */
+        private final PersonQuery cond;
+
+        /** Update. */
+        private final Update update;
+
+        /**
+         * @param cond Condition.
+         * @param update Update.
+         */
+        Conditional(PersonQuery cond, Update update) {
+            this.cond = cond;
+            this.update = update;
+        }
+
+        /** {@inheritDoc} */
+        @Override protected BinaryObject apply(BinaryObject p) {
+            return cond.matches(p) ? update.apply(p) : p;
+        }
+
+        /** {@inheritDoc} */
+        @Override public String toString() {
+            return "Conditional [cond=" + cond + ", update=" + update + ']';
+        }
+    }
+}
@@ -0,0 +1,348 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.cdc;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.cache.event.CacheEntryEvent;
+import javax.cache.event.EventType;
+
+import com.mouse.ignite_test.CacheQueryExample;
+import com.mouse.ignite_test.model.Organization;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteException;
+import org.apache.ignite.IgniteLogger;
+import org.apache.ignite.cache.query.ContinuousQuery;
+import org.apache.ignite.cache.query.QueryCursor;
+import org.apache.ignite.internal.IgniteEx;
+import org.apache.ignite.internal.binary.GridBinaryMarshaller;
+import org.apache.ignite.internal.processors.cache.binary.CacheObjectBinaryProcessorImpl;
+
+/**
+ * Captures committed updates of Person and Organization caches into a {@link ChangeLogWriter} log.
+ * <p>
+ * Updates are observed through continuous queries, so only committed values are captured, once
+ * per update, from the primary node. The listener only stamps the capture time and enqueues the
+ * event without blocking; a background thread marshals batches and appends them to the log, so the
+ * put path never waits for the disk. Consumers tail the log with {@link ChangeLogReader}.
+ * <p>
+ * If the queue overflows or the log cannot be written, the log would have a gap, so capture fails
+ * as a whole: continuous queries are closed and {@link #flush()} and {@link #lastSequence()} throw.
+ * <p>
+ * The update time of an Organization record is its {@code lastUpdated} timestamp when set.
+ */
+public class ChangeDataCapture implements AutoCloseable {
+    /** Default max segment size. */
+    public static final long DFLT_SEGMENT_SIZE = 64L * 1024 * 1024;
+
+    /** Default queue capacity. */
+    public static final int DFLT_QUEUE_CAPACITY = 64 * 1024;
+
+    /** Max records per write batch. */
+    private static final int MAX_BATCH = 4096;
+
+    /** Captured caches. */
+    private static final String[] CACHES = {CacheQueryExample.PERSON_CACHE, CacheQueryExample.ORG_CACHE};
+
+    /** Log writer. */
+    private final ChangeLogWriter writer;
+
+    /** Marshaller. */
+    private final GridBinaryMarshaller marsh;
+
+    /** Logger. */
+    private final IgniteLogger log;
+
+    /** Captured, not yet written updates. */
+    private final BlockingQueue<Event> queue;
+
+    /** Continuous query cursors. */
+    private final List<QueryCursor<?>> cursors = new ArrayList<>();
+
+    /** Writer thread. */
+    private final Thread writerThread;
+
+    /** Number of captured updates. */
+    private final AtomicLong captured = new AtomicLong();
+
+    /** Number of written updates. */
+    private volatile long written;
+
+    /** Sequence number of the last written record. */
+    private volatile long lastSeq;
+
+    /** Stop flag. */
+    private volatile boolean stopped;
+
+    /** Failure that stopped capture. */
+    private final AtomicReference<Throwable> err = new AtomicReference<>();
+
+    /**
+     * @param ignite Ignite.
+     * @param dir Log directory.
+     * @throws IOException If failed to open log.
+     */
+    public ChangeDataCapture(Ignite ignite, Path dir) throws IOException {
+        this(ignite, dir, DFLT_SEGMENT_SIZE, DFLT_QUEUE_CAPACITY, false);
+    }
+
+    /**
+     * @param ignite Ignite.
+     * @param dir Log directory.
+     * @param segmentSize Max segment size.
+     * @param queueCap Capacity of the queue between listeners and writer.
+     * @param fsync Whether to fsync after every batch.
+     * @throws IOException If failed to open log.
+     */
+    public ChangeDataCapture(Ignite ignite, Path dir, long segmentSize, int queueCap, boolean fsync)
+        throws IOException {
+        writer = new ChangeLogWriter(dir, segmentSize, fsync);
+        marsh = marshaller(ignite);
+        log = ignite.log().getLogger(ChangeDataCapture.class);
+        queue = new ArrayBlockingQueue<>(queueCap);
+        lastSeq = writer.lastSequence();
+
+        writerThread = new Thread(this::writeLoop, "cdc-writer-" + ignite.name());
+        writerThread.setDaemon(true);
+        writerThread.start();
+
+        for (String cacheName : CACHES) {
+            ContinuousQuery<Object, Object> qry = new ContinuousQuery<>();
+
+            qry.setLocalListener(evts -> {
+                long now = System.currentTimeMillis();
+
+                for (CacheEntryEvent<?, ?> e : evts)
+                    enqueue(new Event(cacheName, now, e));
+            });
+
+            QueryCursor<?> cur = ignite.cache(cacheName).query(qry);
+
+            synchronized (cursors) {
+                cursors.add(cur);
+            }
+        }
+    }
+
+    /**
+     * @param ignite Ignite.
+     * @return Binary marshaller used to write and read keys and values.
+     */
+    static GridBinaryMarshaller marshaller(Ignite ignite) {
+        return ((CacheObjectBinaryProcessorImpl)((IgniteEx)ignite).context().cacheObjects()).marshaller();
+    }
+
+    /**
+     * @return Sequence number of the last record written to the log.
+     * @throws IgniteException If capture failed.
+     */
+    public long lastSequence() {
+        checkFailure();
+
+        return lastSeq;
+    }
+
+    /**
+     * @return Number of captured updates waiting to be written.
+     */
+    public int pending() {
+        return queue.size();
+    }
+
+    /**
+     * Waits until all updates captured so far are written.
+     *
+     * @throws InterruptedException If interrupted.
+     * @throws IgniteException If capture failed.
+     */
+    public void flush() throws InterruptedException {
+        long target = captured.get();
+
+        while (written < target) {
+            checkFailure();
+
+            if (!writerThread.isAlive())
+                throw new IgniteException("Change data capture is closed.");
+
+            Thread.sleep(1);
+        }
+
+        checkFailure();
+    }
+
+    /**
+     * @param evt Event.
+     */
+    private void enqueue(Event evt) {
+        if (err.get() != null)
+            return;
+
+        if (queue.offer(evt))
+            captured.incrementAndGet();
+        else
+            fail(new IgniteException("Change queue overflow, writer fell behind by " + queue.size() + " updates."));
+    }
+
+    /**
+     * Stops capture after a change was lost.
+     *
+     * @param e Failure.
+     */
+    private void fail(Throwable e) {
+        if (!err.compareAndSet(null, e))
+            return;
+
+        log.error("Change data capture stopped.", e);
+
+        // Listeners run on Ignite threads that must not wait for the query to stop.
+        Thread stopper = new Thread(this::closeCursors, "cdc-stop");
+
+        stopper.setDaemon(true);
+        stopper.start();
+    }
+
+    /**
+     * @throws IgniteException If capture failed.
+     */
+    private void checkFailure() {
+        Throwable e = err.get();
+
+        if (e != null)
+            throw new IgniteException("Change data capture failed, log is incomplete after sequence " + lastSeq, e);
+    }
+
+    /**
+     * Closes continuous queries.
+     */
+    private void closeCursors() {
+        synchronized (cursors) {
+            for (QueryCursor<?> cur : cursors)
+                cur.close();
+
+            cursors.clear();
+        }
+    }
+
+    /**
+     * Drains queue in batches and appends them to the log.
+     */
+    private void writeLoop() {
+        List<Event> evts = new ArrayList<>(MAX_BATCH);
+        List<ChangeLogWriter.Change> batch = new ArrayList<>(MAX_BATCH);
+
+        try {
+            while (err.get() == null && (!stopped || !queue.isEmpty())) {
+                Event first = queue.poll(100, TimeUnit.MILLISECONDS);
+
+                if (first == null)
+                    continue;
+
+                evts.add(first);
+                queue.drainTo(evts, MAX_BATCH - 1);
+
+                for (Event e : evts)
+                    batch.add(e.toChange(marsh));
+
+                lastSeq = writer.append(batch);
+                written += batch.size();
+
+                evts.clear();
+                batch.clear();
+            }
+        }
+        catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+        catch (IOException | RuntimeException e) {
+            fail(e);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override public void close() throws IOException {
+        closeCursors();
+
+        stopped = true;
+
+        try {
+            writerThread.join();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        writer.close();
+    }
+
+    /**
+     * Captured update.
+     */
+    private static class Event {
+        /** Cache name. */
+        private final String cacheName;
+
+        /** Capture time. */
+        private final long captured;
+
+        /** Operation. */
+        private final ChangeRecord.Operation op;
+
+        /** Key. */
+        private final Object key;
+
+        /** New value or {@code null}. */
+        private final Object val;
+
+        /**
+         * @param cacheName Cache name.
+         * @param captured Capture time.
+         * @param e Cache event.
+         */
+        Event(String cacheName, long captured, CacheEntryEvent<?, ?> e) {
+            this.cacheName = cacheName;
+            this.captured = captured;
+
+            boolean rmv = e.getEventType() == EventType.REMOVED || e.getEventType() == EventType.EXPIRED;
+
+            op = rmv ? ChangeRecord.Operation.REMOVE : ChangeRecord.Operation.PUT;
+            key = e.getKey();
+            val = rmv ? null : e.getValue();
+        }
+
+        /**
+         * @param marsh Marshaller.
+         * @return Marshalled change.
+         */
+        ChangeLogWriter.Change toChange(GridBinaryMarshaller marsh) {
+            long updated = captured;
+
+            if (val instanceof Organization && ((Organization)val).lastUpdated() != null)
+                updated = ((Organization)val).lastUpdated().getTime();
+
+            return new ChangeLogWriter.Change(captured, updated, cacheName, op, marsh.marshal(key, false),
+                val == null ? null : marsh.marshal(val, false));
+        }
+    }
+}
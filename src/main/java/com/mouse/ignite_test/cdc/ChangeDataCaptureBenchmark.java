@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.cdc;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import com.mouse.ignite_test.cluster.ClusterHarness;
+import com.mouse.ignite_test.model.Organization;
+import com.mouse.ignite_test.model.OrganizationType;
+import com.mouse.ignite_test.model.Person;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.cache.affinity.AffinityKey;
+
+/**
+ * Measures overhead of {@link ChangeDataCapture} on the put path and lag of a tailing consumer.
+ * <p>
+ * Persons and organizations are put once without capture and once with capture enabled while a
+ * consumer thread tails the log. Reported lag is the time from capture to the moment the consumer
+ * read the record.
+ * <p>
+ * Arguments (all optional, positional): updates (default {@code 200000}), organizations (default {@code 100}).
+ */
+public class ChangeDataCaptureBenchmark {
+    /**
+     * Executes benchmark.
+     *
+     * @param args Command line arguments, see class description.
+     * @throws Exception If failed.
+     */
+    public static void main(String[] args) throws Exception {
+        int updates = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int orgs = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+
+        Path dir = Files.createTempDirectory("person-cdc");
+
+        try (Ignite ignite = ClusterHarness.startNode("cdc-bench")) {
+            IgniteCache<Long, Organization> orgCache = ignite.getOrCreateCache(ClusterHarness.orgCacheConfiguration());
+            IgniteCache<AffinityKey<Long>, Person> personCache =
+                ignite.getOrCreateCache(ClusterHarness.personCacheConfiguration());
+
+            // Warm up and baseline.
+            runUpdates(orgCache, personCache, updates, orgs);
+
+            long baseline = runUpdates(orgCache, personCache, updates, orgs);
+
+            long[] lags = new long[updates + updates / 100 + 1];
+            int[] read = new int[1];
+            AtomicBoolean done = new AtomicBoolean();
+
+            long captureTime;
+            long catchUp;
+
+            try (ChangeDataCapture cdc = new ChangeDataCapture(ignite, dir)) {
+                Thread consumer = new Thread(() -> {
+                    try (ChangeLogReader reader = new ChangeLogReader(ignite, dir, 1)) {
+                        while (true) {
+                            ChangeRecord r = reader.poll();
+
+                            if (r == null) {
+                                if (done.get() && reader.nextSequence() > cdc.lastSequence())
+                                    break;
+
+                                Thread.sleep(1);
+
+                                continue;
+                            }
+
+                            if (read[0] < lags.length)
+                                lags[read[0]++] = System.currentTimeMillis() - r.capturedTime();
+                        }
+                    }
+                    catch (IOException | InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }, "cdc-consumer");
+
+                consumer.start();
+
+                captureTime = runUpdates(orgCache, personCache, updates, orgs);
+
+                long start = System.nanoTime();
+
+                cdc.flush();
+                done.set(true);
+                consumer.join();
+
+                catchUp = System.nanoTime() - start;
+            }
+
+            long[] sorted = Arrays.copyOf(lags, read[0]);
+
+            Arrays.sort(sorted);
+
+            System.out.println();
+            System.out.printf(">>> Put throughput: without capture %.0f ops/s, with capture %.0f ops/s (%.1f%% overhead)%n",
+                updates * 1e9 / baseline, updates * 1e9 / captureTime, 100.0 * (captureTime - baseline) / baseline);
+            System.out.println(">>> Records read by consumer: " + read[0] + ", log size: " + size(dir) + " bytes");
+            System.out.println(">>> Consumer lag, ms: p50=" + sorted[sorted.length / 2] +
+                ", p99=" + sorted[(int)(sorted.length * 0.99)] + ", max=" + sorted[sorted.length - 1]);
+            System.out.println(">>> Consumer caught up " + catchUp / 1_000_000 + " ms after the last put.");
+        }
+        finally {
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path p : (Iterable<Path>)files::iterator)
+                    Files.delete(p);
+            }
+
+            Files.delete(dir);
+        }
+    }
+
+    /**
+     * Puts {@code updates} persons and an organization update every 100 persons.
+     *
+     * @param orgCache Organizations cache.
+     * @param personCache Persons cache.
+     * @param updates Number of person updates.
+     * @param orgs Number of organizations.
+     * @return Time taken, nanoseconds.
+     */
+    private static long runUpdates(IgniteCache<Long, Organization> orgCache,
+        IgniteCache<AffinityKey<Long>, Person> personCache, int updates, int orgs) {
+        Random r = new Random(42);
+
+        long start = System.nanoTime();
+
+        for (long id = 1; id <= updates; id++) {
+            Person p = ClusterHarness.person(id, orgs, r);
+
+            personCache.put(p.key(), p);
+
+            if (id % 100 == 0) {
+                Organization org = new Organization(p.orgId, "Org" + p.orgId, null, OrganizationType.PRIVATE,
+                    new Timestamp(System.currentTimeMillis()));
+
+                orgCache.put(org.id(), org);
+            }
+        }
+
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * @param dir Directory.
+     * @return Total size of files in directory.
+     * @throws IOException If failed.
+     */
+    private static long size(Path dir) throws IOException {
+        long size = 0;
+
+        for (Path p : ChangeLogWriter.segments(dir))
+            size += Files.size(p);
+
+        return size;
+    }
+}
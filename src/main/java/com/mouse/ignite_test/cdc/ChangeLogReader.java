@@ -0,0 +1,271 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.cdc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteException;
+import org.apache.ignite.binary.BinaryObjectException;
+import org.apache.ignite.internal.binary.GridBinaryMarshaller;
+import org.apache.ignite.internal.util.typedef.internal.U;
+
+/**
+ * Tails change log written by {@link ChangeLogWriter} starting from a sequence number.
+ * <p>
+ * Segments are read through memory mapped buffers which are remapped when the writer appends
+ * to the current segment. Records before the requested sequence number are skipped without
+ * unmarshalling. A reader can run in any JVM that has the model classes and access to the
+ * cluster binary metadata. Not thread safe.
+ */
+public class ChangeLogReader implements AutoCloseable {
+    /** Log directory. */
+    private final Path dir;
+
+    /** Marshaller used by {@link ChangeDataCapture}. */
+    private final GridBinaryMarshaller marsh;
+
+    /** Class loader. */
+    private final ClassLoader ldr;
+
+    /** Reusable CRC. */
+    private final CRC32 crc = new CRC32();
+
+    /** Sequence number of the first record in current segment, {@code -1} if none is open. */
+    private long segBase = -1;
+
+    /** Current segment channel. */
+    private FileChannel ch;
+
+    /** Current segment contents. */
+    private MappedByteBuffer map;
+
+    /** Position of the next record in current segment. */
+    private int pos;
+
+    /** Sequence number of the next record to return. */
+    private long nextSeq;
+
+    /**
+     * @param ignite Ignite, used to unmarshal keys and values.
+     * @param dir Log directory.
+     * @param fromSeq First sequence number to read; older records that are no longer in the log are skipped.
+     */
+    public ChangeLogReader(Ignite ignite, Path dir, long fromSeq) {
+        this.dir = dir;
+
+        marsh = ChangeDataCapture.marshaller(ignite);
+        ldr = U.resolveClassLoader(ignite.configuration());
+        nextSeq = fromSeq;
+    }
+
+    /**
+     * @return Sequence number of the next record this reader will return.
+     */
+    public long nextSequence() {
+        return nextSeq;
+    }
+
+    /**
+     * Reads next record if it has already been written.
+     *
+     * @return Next record or {@code null} if reader has caught up with the writer.
+     * @throws IOException If failed.
+     */
+    public ChangeRecord poll() throws IOException {
+        while (true) {
+            if (segBase < 0 && !openSegment())
+                return null;
+
+            long seq = ChangeLogWriter.readSequence(map, pos, crc);
+
+            if (seq >= 0) {
+                int recPos = pos;
+
+                pos += 4 + map.getInt(pos) + 4;
+
+                if (seq < nextSeq)
+                    continue;
+
+                nextSeq = seq + 1;
+
+                return decode(recPos, seq);
+            }
+
+            if (ch.size() > map.limit()) {
+                remap();
+
+                continue;
+            }
+
+            Path next = nextSegment();
+
+            // Writer never returns to a segment once the next one exists, but it may have
+            // finished the current one after the size check above.
+            if (next == null)
+                return null;
+
+            if (ch.size() > map.limit()) {
+                remap();
+
+                continue;
+            }
+
+            closeSegment();
+
+            segBase = ChangeLogWriter.baseSequence(next);
+            ch = FileChannel.open(next, StandardOpenOption.READ);
+            pos = 0;
+
+            remap();
+        }
+    }
+
+    /**
+     * Reads up to {@code max} records that have already been written.
+     *
+     * @param res Collection to add records to.
+     * @param max Max number of records.
+     * @return Number of records read.
+     * @throws IOException If failed.
+     */
+    public int poll(List<ChangeRecord> res, int max) throws IOException {
+        int cnt = 0;
+
+        for (ChangeRecord r; cnt < max && (r = poll()) != null; cnt++)
+            res.add(r);
+
+        return cnt;
+    }
+
+    /** {@inheritDoc} */
+    @Override public void close() throws IOException {
+        closeSegment();
+    }
+
+    /**
+     * Opens segment that contains {@link #nextSeq}, or the oldest one if it was already removed.
+     *
+     * @return {@code False} if log has no segments yet.
+     * @throws IOException If failed.
+     */
+    private boolean openSegment() throws IOException {
+        List<Path> segments = ChangeLogWriter.segments(dir);
+
+        if (segments.isEmpty())
+            return false;
+
+        Path seg = segments.get(0);
+
+        for (Path p : segments) {
+            if (ChangeLogWriter.baseSequence(p) <= nextSeq)
+                seg = p;
+        }
+
+        segBase = ChangeLogWriter.baseSequence(seg);
+        ch = FileChannel.open(seg, StandardOpenOption.READ);
+        pos = 0;
+
+        remap();
+
+        return true;
+    }
+
+    /**
+     * @return Segment following the current one or {@code null}.
+     * @throws IOException If failed.
+     */
+    private Path nextSegment() throws IOException {
+        for (Path p : ChangeLogWriter.segments(dir)) {
+            if (ChangeLogWriter.baseSequence(p) > segBase)
+                return p;
+        }
+
+        return null;
+    }
+
+    /**
+     * Maps current segment up to its current size.
+     *
+     * @throws IOException If failed.
+     */
+    private void remap() throws IOException {
+        map = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+    }
+
+    /**
+     * @throws IOException If failed.
+     */
+    private void closeSegment() throws IOException {
+        if (ch != null)
+            ch.close();
+
+        ch = null;
+        map = null;
+        segBase = -1;
+    }
+
+    /**
+     * @param recPos Record position.
+     * @param seq Sequence number.
+     * @return Decoded record.
+     */
+    private ChangeRecord decode(int recPos, long seq) {
+        ByteBuffer buf = map.duplicate();
+
+        buf.position(recPos + 4 + 8);
+
+        long captured = buf.getLong();
+        long updated = buf.getLong();
+        ChangeRecord.Operation op = ChangeRecord.Operation.fromOrdinal(buf.get());
+
+        byte[] cacheName = new byte[buf.getShort()];
+
+        buf.get(cacheName);
+
+        byte[] key = new byte[buf.getInt()];
+
+        buf.get(key);
+
+        int valLen = buf.getInt();
+
+        byte[] val = null;
+
+        if (valLen >= 0) {
+            val = new byte[valLen];
+
+            buf.get(val);
+        }
+
+        try {
+            return new ChangeRecord(seq, captured, updated, new String(cacheName, StandardCharsets.UTF_8), op,
+                marsh.deserialize(key, ldr), val == null ? null : marsh.deserialize(val, ldr));
+        }
+        catch (BinaryObjectException e) {
+            throw new IgniteException("Failed to unmarshal change record: " + seq, e);
+        }
+    }
+}
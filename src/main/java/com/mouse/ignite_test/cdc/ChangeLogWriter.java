@@ -0,0 +1,370 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.cdc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only change log split into segments.
+ * <p>
+ * A segment is a file named after the sequence number of its first record, zero padded so
+ * that names sort like numbers. Each record is laid out as:
+ * <pre>
+ * int    length of the fields below up to, not including, crc
+ * long   sequence number
+ * long   capture time
+ * long   update time
+ * byte   operation ordinal
+ * short  cache name length, UTF-8 cache name
+ * int    key length, key bytes
+ * int    value length or -1, value bytes
+ * int    CRC32 of the fields above starting at sequence number
+ * </pre>
+ * Readers see a record only once its CRC matches, so a record that is still being written is
+ * simply not visible yet. On open, the writer drops an incomplete tail left by a crash and
+ * continues numbering after the last complete record. Not thread safe.
+ */
+public class ChangeLogWriter implements AutoCloseable {
+    /** Segment file extension. */
+    static final String SEGMENT_EXT = ".seg";
+
+    /** Record header: length, seq, captured, updated, op. */
+    static final int HEADER_SIZE = 4 + 8 + 8 + 8 + 1;
+
+    /** Max segment size, segments are memory mapped as a whole by readers. */
+    public static final long MAX_SEGMENT_SIZE = 1L << 30;
+
+    /** Log directory. */
+    private final Path dir;
+
+    /** Max segment size, a segment may exceed it by one batch. */
+    private final long segmentSize;
+
+    /** Whether to fsync after every batch. */
+    private final boolean fsync;
+
+    /** Current segment channel. */
+    private FileChannel ch;
+
+    /** Next sequence number. */
+    private long nextSeq;
+
+    /** Reusable write buffer. */
+    private ByteBuffer buf = ByteBuffer.allocate(64 * 1024);
+
+    /** Reusable CRC. */
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * @param dir Log directory, created if missing.
+     * @param segmentSize Max segment size in bytes, at most {@link #MAX_SEGMENT_SIZE}.
+     * @param fsync Whether to fsync after every batch.
+     * @throws IOException If failed.
+     */
+    public ChangeLogWriter(Path dir, long segmentSize, boolean fsync) throws IOException {
+        if (segmentSize <= 0 || segmentSize > MAX_SEGMENT_SIZE)
+            throw new IllegalArgumentException("Segment size must be in (0, " + MAX_SEGMENT_SIZE + "]: " + segmentSize);
+
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        this.fsync = fsync;
+
+        Files.createDirectories(dir);
+
+        List<Path> segments = segments(dir);
+
+        if (segments.isEmpty()) {
+            openSegment(1);
+
+            nextSeq = 1;
+        }
+        else {
+            Path last = segments.get(segments.size() - 1);
+
+            ch = FileChannel.open(last, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+            recover(baseSequence(last));
+        }
+    }
+
+    /**
+     * @return Sequence number of the last appended record, {@code 0} if log is empty.
+     */
+    public long lastSequence() {
+        return nextSeq - 1;
+    }
+
+    /**
+     * Appends batch of changes, assigning consecutive sequence numbers. If the write fails, the batch
+     * is truncated and sequence numbers are not consumed.
+     *
+     * @param batch Changes.
+     * @return Sequence number of the last appended record.
+     * @throws IOException If failed.
+     */
+    public long append(List<Change> batch) throws IOException {
+        buf.clear();
+
+        long seq = nextSeq;
+
+        for (Change c : batch) {
+            int len = HEADER_SIZE - 4 + 2 + c.cacheName.length + 4 + c.key.length + 4 +
+                (c.val == null ? 0 : c.val.length);
+
+            ensureCapacity(4 + len + 4);
+
+            int start = buf.position();
+
+            buf.putInt(len);
+            buf.putLong(seq++);
+            buf.putLong(c.captured);
+            buf.putLong(c.updated);
+            buf.put((byte)c.op.ordinal());
+            buf.putShort((short)c.cacheName.length);
+            buf.put(c.cacheName);
+            buf.putInt(c.key.length);
+            buf.put(c.key);
+            buf.putInt(c.val == null ? -1 : c.val.length);
+
+            if (c.val != null)
+                buf.put(c.val);
+
+            crc.reset();
+            crc.update(buf.array(), start + 4, len);
+
+            buf.putInt((int)crc.getValue());
+        }
+
+        buf.flip();
+
+        if (ch.size() > 0 && ch.size() + buf.remaining() > segmentSize)
+            openSegment(nextSeq);
+
+        long pos = ch.position();
+
+        try {
+            while (buf.hasRemaining())
+                ch.write(buf);
+
+            if (fsync)
+                ch.force(false);
+        }
+        catch (IOException e) {
+            try {
+                ch.truncate(pos);
+                ch.position(pos);
+            }
+            catch (IOException e0) {
+                e.addSuppressed(e0);
+            }
+
+            throw e;
+        }
+
+        nextSeq = seq;
+
+        return nextSeq - 1;
+    }
+
+    /** {@inheritDoc} */
+    @Override public void close() throws IOException {
+        ch.close();
+    }
+
+    /**
+     * Grows write buffer if needed.
+     *
+     * @param bytes Bytes to fit.
+     */
+    private void ensureCapacity(int bytes) {
+        if (buf.remaining() >= bytes)
+            return;
+
+        ByteBuffer newBuf = ByteBuffer.allocate(Math.max(buf.capacity() * 2, buf.position() + bytes));
+
+        buf.flip();
+        newBuf.put(buf);
+
+        buf = newBuf;
+    }
+
+    /**
+     * Closes current segment and starts a new one.
+     *
+     * @param firstSeq Sequence number of the first record in new segment.
+     * @throws IOException If failed.
+     */
+    private void openSegment(long firstSeq) throws IOException {
+        if (ch != null) {
+            ch.force(false);
+            ch.close();
+        }
+
+        ch = FileChannel.open(dir.resolve(segmentName(firstSeq)),
+            StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Finds the end of the last complete record in current segment and truncates the rest.
+     *
+     * @param baseSeq Sequence number of the first record in segment.
+     * @throws IOException If failed.
+     */
+    private void recover(long baseSeq) throws IOException {
+        nextSeq = baseSeq;
+
+        long size = ch.size();
+
+        if (size == 0)
+            return;
+
+        MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+        int pos = 0;
+
+        while (true) {
+            long seq = readSequence(map, pos, crc);
+
+            if (seq < 0)
+                break;
+
+            nextSeq = seq + 1;
+            pos += 4 + map.getInt(pos) + 4;
+        }
+
+        ch.truncate(pos);
+        ch.position(pos);
+    }
+
+    /**
+     * Validates record at given position.
+     *
+     * @param buf Buffer with segment contents.
+     * @param pos Record position.
+     * @param crc CRC to use.
+     * @return Sequence number of the record, or {@code -1} if there is no complete record at position.
+     */
+    static long readSequence(ByteBuffer buf, int pos, CRC32 crc) {
+        if (pos + 4 > buf.limit())
+            return -1;
+
+        int len = buf.getInt(pos);
+
+        if (len < HEADER_SIZE - 4 || pos + 4L + len + 4 > buf.limit())
+            return -1;
+
+        ByteBuffer rec = buf.duplicate();
+
+        rec.position(pos + 4).limit(pos + 4 + len);
+
+        crc.reset();
+        crc.update(rec);
+
+        if ((int)crc.getValue() != buf.getInt(pos + 4 + len))
+            return -1;
+
+        return buf.getLong(pos + 4);
+    }
+
+    /**
+     * @param dir Log directory.
+     * @return Segment files sorted by first sequence number.
+     * @throws IOException If failed.
+     */
+    static List<Path> segments(Path dir) throws IOException {
+        if (!Files.isDirectory(dir))
+            return new ArrayList<>();
+
+        try (Stream<Path> files = Files.list(dir)) {
+            return files
+                .filter(p -> p.getFileName().toString().endsWith(SEGMENT_EXT))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * @param firstSeq Sequence number of the first record in segment.
+     * @return Segment file name.
+     */
+    static String segmentName(long firstSeq) {
+        return String.format("%020d", firstSeq) + SEGMENT_EXT;
+    }
+
+    /**
+     * @param segment Segment file.
+     * @return Sequence number of the first record in segment.
+     */
+    static long baseSequence(Path segment) {
+        String name = segment.getFileName().toString();
+
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_EXT.length()));
+    }
+
+    /**
+     * Change to append, with key and value already marshalled.
+     */
+    static class Change {
+        /** Capture time. */
+        final long captured;
+
+        /** Update time. */
+        final long updated;
+
+        /** Cache name, UTF-8. */
+        final byte[] cacheName;
+
+        /** Operation. */
+        final ChangeRecord.Operation op;
+
+        /** Key bytes. */
+        final byte[] key;
+
+        /** Value bytes or {@code null}. */
+        final byte[] val;
+
+        /**
+         * @param captured Capture time.
+         * @param updated Update time.
+         * @param cacheName Cache name.
+         * @param op Operation.
+         * @param key Key bytes.
+         * @param val Value bytes or {@code null}.
+         */
+        Change(long captured, long updated, String cacheName, ChangeRecord.Operation op, byte[] key, byte[] val) {
+            this.captured = captured;
+            this.updated = updated;
+            this.cacheName = cacheName.getBytes(StandardCharsets.UTF_8);
+            this.op = op;
+            this.key = key;
+            this.val = val;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.cdc;
+
+/**
+ * Single committed cache update read from the change log.
+ */
+public class ChangeRecord {
+    /**
+     * Update type.
+     */
+    public enum Operation {
+        /** Entry created or updated. */
+        PUT,
+
+        /** Entry removed or expired. */
+        REMOVE;
+
+        /** Cached values. */
+        private static final Operation[] VALS = values();
+
+        /**
+         * @param ord Ordinal.
+         * @return Operation.
+         */
+        static Operation fromOrdinal(int ord) {
+            return VALS[ord];
+        }
+    }
+
+    /** Sequence number. */
+    private final long seq;
+
+    /** Time update was captured, milliseconds. */
+    private final long captured;
+
+    /** Time entity was updated, milliseconds. */
+    private final long updated;
+
+    /** Cache name. */
+    private final String cacheName;
+
+    /** Operation. */
+    private final Operation op;
+
+    /** Key. */
+    private final Object key;
+
+    /** New value, {@code null} for {@link Operation#REMOVE}. */
+    private final Object val;
+
+    /**
+     * @param seq Sequence number.
+     * @param captured Capture time.
+     * @param updated Update time.
+     * @param cacheName Cache name.
+     * @param op Operation.
+     * @param key Key.
+     * @param val Value.
+     */
+    ChangeRecord(long seq, long captured, long updated, String cacheName, Operation op, Object key, Object val) {
+        this.seq = seq;
+        this.captured = captured;
+        this.updated = updated;
+        this.cacheName = cacheName;
+        this.op = op;
+        this.key = key;
+        this.val = val;
+    }
+
+    /**
+     * @return Sequence number, strictly increasing across the whole log.
+     */
+    public long sequence() {
+        return seq;
+    }
+
+    /**
+     * @return Time the update was captured, milliseconds.
+     */
+    public long capturedTime() {
+        return captured;
+    }
+
+    /**
+     * @return Time the entity was updated: {@code Organization.lastUpdated()} when set, capture time otherwise.
+     */
+    public long updatedTime() {
+        return updated;
+    }
+
+    /**
+     * @return Cache name.
+     */
+    public String cacheName() {
+        return cacheName;
+    }
+
+    /**
+     * @return Operation.
+     */
+    public Operation operation() {
+        return op;
+    }
+
+    /**
+     * @return Key.
+     */
+    public Object key() {
+        return key;
+    }
+
+    /**
+     * @return New value, {@code null} for {@link Operation#REMOVE}.
+     */
+    public Object value() {
+        return val;
+    }
+
+    /** {@inheritDoc} */
+    @Override public String toString() {
+        return "ChangeRecord [seq=" + seq +
+            ", captured=" + captured +
+            ", updated=" + updated +
+            ", cacheName=" + cacheName +
+            ", op=" + op +
+            ", key=" + key +
+            ", val=" + val + ']';
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.cluster;
+
+import java.util.Collections;
+import java.util.Random;
+
+import com.mouse.ignite_test.CacheQueryExample;
+import com.mouse.ignite_test.model.Organization;
+import com.mouse.ignite_test.model.Person;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteDataStreamer;
+import org.apache.ignite.Ignition;
+import org.apache.ignite.cache.CacheMode;
+import org.apache.ignite.cache.affinity.AffinityKey;
+import org.apache.ignite.configuration.CacheConfiguration;
+import org.apache.ignite.configuration.DataRegionConfiguration;
+import org.apache.ignite.configuration.DataStorageConfiguration;
+import org.apache.ignite.configuration.IgniteConfiguration;
+import org.apache.ignite.spi.communication.tcp.TcpCommunicationSpi;
+import org.apache.ignite.spi.discovery.tcp.TcpDiscoverySpi;
+import org.apache.ignite.spi.discovery.tcp.ipfinder.vm.TcpDiscoveryVmIpFinder;
+
+/**
+ * Helpers to start server nodes on loopback with static VM-IP discovery and to
+ * populate the example caches.
+ * <p>
+ * Unlike {@code examples/config/example-default.xml}, which relies on multicast,
+ * every node started here only looks for peers in {@link #DISCOVERY_ADDRESSES},
+ * so several nodes can be started in one JVM or in local forked JVMs
+ * (see {@link ClusterNodeStartup}) without interfering with other clusters.
+ */
+public final class ClusterHarness {
+    /** Loopback discovery port range, enough for ten local nodes. */
+    public static final String DISCOVERY_ADDRESSES = "127.0.0.1:47500..47509";
+
+    /** Max nodes that can find each other through {@link #DISCOVERY_ADDRESSES}. */
+    public static final int MAX_LOCAL_NODES = 10;
+
+    /** Default data region size. */
+    public static final long DEFAULT_REGION_SIZE = 512L * 1024 * 1024;
+
+    /** Salary upper bound, same as in {@link CacheQueryExample}. */
+    public static final int MAX_SALARY = 10000;
+
+    /**
+     * Utility class.
+     */
+    private ClusterHarness() {
+        // No-op.
+    }
+
+    /**
+     * Creates server node configuration with static discovery on loopback.
+     *
+     * @param igniteInstanceName Ignite instance name, must be unique within a JVM.
+     * @return Ignite configuration.
+     */
+    public static IgniteConfiguration configuration(String igniteInstanceName) {
+        TcpDiscoveryVmIpFinder ipFinder = new TcpDiscoveryVmIpFinder();
+
+        ipFinder.setAddresses(Collections.singletonList(DISCOVERY_ADDRESSES));
+
+        TcpDiscoverySpi discoSpi = new TcpDiscoverySpi();
+
+        discoSpi.setLocalAddress("127.0.0.1");
+        discoSpi.setIpFinder(ipFinder);
+
+        TcpCommunicationSpi commSpi = new TcpCommunicationSpi();
+
+        commSpi.setLocalAddress("127.0.0.1");
+
+        DataStorageConfiguration storageCfg = new DataStorageConfiguration();
+
+        storageCfg.setDefaultDataRegionConfiguration(new DataRegionConfiguration()
+            .setMaxSize(Long.getLong("ignite.test.regionSize", DEFAULT_REGION_SIZE)));
+
+        return new IgniteConfiguration()
+            .setIgniteInstanceName(igniteInstanceName)
+            .setPeerClassLoadingEnabled(true)
+            .setDiscoverySpi(discoSpi)
+            .setCommunicationSpi(commSpi)
+            .setDataStorageConfiguration(storageCfg);
+    }
+
+    /**
+     * Starts server node in this JVM.
+     *
+     * @param igniteInstanceName Ignite instance name.
+     * @return Started node.
+     */
+    public static Ignite startNode(String igniteInstanceName) {
+        return Ignition.start(configuration(igniteInstanceName));
+    }
+
+    /**
+     * @return Organizations cache configuration.
+     */
+    public static CacheConfiguration<Long, Organization> orgCacheConfiguration() {
+        CacheConfiguration<Long, Organization> orgCacheCfg = new CacheConfiguration<>(CacheQueryExample.ORG_CACHE);
+
+        orgCacheCfg.setCacheMode(CacheMode.PARTITIONED); // Default.
+        orgCacheCfg.setIndexedTypes(Long.class, Organization.class);
+
+        return orgCacheCfg;
+    }
+
+    /**
+     * @return Persons cache configuration, persons are collocated with their organizations.
+     */
+    public static CacheConfiguration<AffinityKey<Long>, Person> personCacheConfiguration() {
+        CacheConfiguration<AffinityKey<Long>, Person> personCacheCfg =
+            new CacheConfiguration<>(CacheQueryExample.PERSON_CACHE);
+
+        personCacheCfg.setCacheMode(CacheMode.PARTITIONED); // Default.
+        personCacheCfg.setIndexedTypes(AffinityKey.class, Person.class);
+
+        return personCacheCfg;
+    }
+
+    /**
+     * Creates person with generated fields, in the same shape as {@code CacheQueryExample.initialize()}.
+     *
+     * @param id Person ID.
+     * @param orgs Number of organizations.
+     * @param r Random.
+     * @return Person.
+     */
+    public static Person person(long id, int orgs, Random r) {
+        return new Person(id, 1 + id % orgs, "John" + id, "Doe" + id, r.nextInt(MAX_SALARY),
+            "John Doe has Master Degree." + id);
+    }
+
+    /**
+     * Loads organizations {@code 1..orgs} into organizations cache.
+     *
+     * @param ignite Ignite.
+     * @param orgs Number of organizations.
+     */
+    public static void loadOrganizations(Ignite ignite, int orgs) {
+        try (IgniteDataStreamer<Long, Organization> streamer = ignite.dataStreamer(CacheQueryExample.ORG_CACHE)) {
+            for (long id = 1; id <= orgs; id++)
+                streamer.addData(id, new Organization(id, "Org" + id));
+        }
+    }
+
+    /**
+     * Loads persons {@code 1..persons} into persons cache, spread evenly over {@code orgs} organizations.
+     *
+     * @param ignite Ignite.
+     * @param persons Number of persons.
+     * @param orgs Number of organizations.
+     * @param seed Random seed for salaries.
+     */
+    public static void loadPersons(Ignite ignite, int persons, int orgs, long seed) {
+        Random r = new Random(seed);
+
+        try (IgniteDataStreamer<AffinityKey<Long>, Person> streamer =
+                 ignite.dataStreamer(CacheQueryExample.PERSON_CACHE)) {
+            for (long id = 1; id <= persons; id++) {
+                Person p = person(id, orgs, r);
+
+                streamer.addData(p.key(), p);
+            }
+        }
+    }
+
+    /**
+     * Loads given persons into persons cache.
+     *
+     * @param ignite Ignite.
+     * @param persons Persons.
+     */
+    public static void loadPersons(Ignite ignite, Iterable<Person> persons) {
+        try (IgniteDataStreamer<AffinityKey<Long>, Person> streamer =
+                 ignite.dataStreamer(CacheQueryExample.PERSON_CACHE)) {
+            for (Person p : persons)
+                streamer.addData(p.key(), p);
+        }
+    }
+}
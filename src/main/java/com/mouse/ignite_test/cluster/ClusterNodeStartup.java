@@ -0,0 +1,35 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.cluster;
+
+/**
+ * Starts a standalone server node with static loopback discovery.
+ * <p>
+ * Used by {@link ClusterScalingBenchmark} in forked mode, but can also be run
+ * manually to add nodes to a cluster started by the harness.
+ */
+public class ClusterNodeStartup {
+    /**
+     * Starts up a server node. The JVM stays alive until the process is killed.
+     *
+     * @param args Command line arguments: optional Ignite instance name.
+     */
+    public static void main(String[] args) {
+        ClusterHarness.startNode(args.length > 0 ? args[0] : "forked-" + ProcessHandle.current().pid());
+    }
+}
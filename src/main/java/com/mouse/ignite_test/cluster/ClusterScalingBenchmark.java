@@ -0,0 +1,383 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.cluster;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import com.mouse.ignite_test.CacheQueryExample;
+import com.mouse.ignite_test.model.Person;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.IgniteException;
+import org.apache.ignite.Ignition;
+import org.apache.ignite.cache.affinity.AffinityKey;
+import org.apache.ignite.cache.query.IndexQuery;
+import org.apache.ignite.cache.query.ScanQuery;
+import org.apache.ignite.cache.query.SqlFieldsQuery;
+import org.apache.ignite.cluster.ClusterNode;
+import org.apache.ignite.lang.IgniteCallable;
+
+import static org.apache.ignite.cache.query.IndexQueryCriteriaBuilder.eq;
+
+/**
+ * Measures how the example query mix scales from 1 to N server nodes.
+ * <p>
+ * The first node is started in this JVM, loads the Person dataset and drives the workload.
+ * Further nodes are added one at a time, either in this JVM or in forked JVMs running
+ * {@link ClusterNodeStartup}. For every node count the benchmark reports the time the
+ * new node needed to join (partition map exchange), the time to rebalance the dataset
+ * onto it, and throughput and latency of the chosen workload.
+ * <p>
+ * Arguments (all optional, positional):
+ * <ol>
+ *     <li>max nodes, default {@code 4};</li>
+ *     <li>persons, default {@code 100000};</li>
+ *     <li>workload: {@code get}, {@code index}, {@code sql} or {@code scan}, default {@code index};</li>
+ *     <li>mode: {@code jvm} or {@code fork}, default {@code jvm};</li>
+ *     <li>operations per node count, default {@code 2000};</li>
+ *     <li>driver threads, default {@code 4}.</li>
+ * </ol>
+ */
+public class ClusterScalingBenchmark {
+    /** Number of organizations persons are spread over. */
+    private static final int ORGS = 100;
+
+    /** How long to wait for a forked node to join. */
+    private static final long JOIN_TIMEOUT = TimeUnit.MINUTES.toMillis(2);
+
+    /**
+     * Workloads to run against persons cache.
+     */
+    enum Workload {
+        /** Get by key. */
+        GET {
+            @Override void run(IgniteCache<AffinityKey<Long>, Person> cache, int persons) {
+                long id = 1 + ThreadLocalRandom.current().nextInt(persons);
+
+                cache.get(new AffinityKey<>(id, 1 + id % ORGS));
+            }
+        },
+
+        /** Index query over {@code orgId}. */
+        INDEX {
+            @Override void run(IgniteCache<AffinityKey<Long>, Person> cache, int persons) {
+                long orgId = 1 + ThreadLocalRandom.current().nextInt(ORGS);
+
+                cache.query(new IndexQuery<AffinityKey<Long>, Person>(Person.class)
+                    .setCriteria(eq("orgId", orgId))).getAll();
+            }
+        },
+
+        /** SQL aggregate over salary range. */
+        SQL {
+            @Override void run(IgniteCache<AffinityKey<Long>, Person> cache, int persons) {
+                double from = ThreadLocalRandom.current().nextInt(ClusterHarness.MAX_SALARY - 100);
+
+                cache.query(new SqlFieldsQuery("select count(*), avg(salary) from Person where salary between ? and ?")
+                    .setArgs(from, from + 100)).getAll();
+            }
+        },
+
+        /** Full scan with predicate. */
+        SCAN {
+            @Override void run(IgniteCache<AffinityKey<Long>, Person> cache, int persons) {
+                double from = ThreadLocalRandom.current().nextInt(ClusterHarness.MAX_SALARY - 100);
+
+                cache.query(new ScanQuery<AffinityKey<Long>, Person>(
+                    (k, p) -> p.salary >= from && p.salary < from + 100)).getAll();
+            }
+        };
+
+        /**
+         * Runs single operation.
+         *
+         * @param cache Persons cache.
+         * @param persons Number of persons in cache.
+         */
+        abstract void run(IgniteCache<AffinityKey<Long>, Person> cache, int persons);
+    }
+
+    /**
+     * Executes benchmark.
+     *
+     * @param args Command line arguments, see class description.
+     * @throws Exception If benchmark failed.
+     */
+    public static void main(String[] args) throws Exception {
+        int maxNodes = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int persons = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        Workload workload = args.length > 2 ? Workload.valueOf(args[2].toUpperCase()) : Workload.INDEX;
+        boolean fork = args.length > 3 && "fork".equalsIgnoreCase(args[3]);
+        int ops = args.length > 4 ? Integer.parseInt(args[4]) : 2000;
+        int threads = args.length > 5 ? Integer.parseInt(args[5]) : 4;
+
+        if (maxNodes < 1 || maxNodes > ClusterHarness.MAX_LOCAL_NODES)
+            throw new IllegalArgumentException("Max nodes must be between 1 and " + ClusterHarness.MAX_LOCAL_NODES +
+                ", the size of discovery port range " + ClusterHarness.DISCOVERY_ADDRESSES + ": " + maxNodes);
+
+        List<Ignite> locNodes = new ArrayList<>();
+        List<Process> forked = new ArrayList<>();
+        List<String> report = new ArrayList<>();
+
+        try {
+            Ignite driver = ClusterHarness.startNode("node-0");
+
+            locNodes.add(driver);
+
+            IgniteCache<AffinityKey<Long>, Person> cache =
+                driver.getOrCreateCache(ClusterHarness.personCacheConfiguration());
+
+            long loadStart = System.nanoTime();
+
+            ClusterHarness.loadPersons(driver, persons, ORGS, 42);
+
+            print("Loaded " + persons + " persons in " + millis(System.nanoTime() - loadStart) + " ms.");
+
+            report.add(String.format("%5s %10s %12s %12s %10s %10s %10s",
+                "nodes", "join ms", "rebalance ms", "ops/s", "p50 us", "p99 us", "max us"));
+
+            for (int n = 1; n <= maxNodes; n++) {
+                long joinNanos = 0;
+                long rebalanceNanos = 0;
+
+                if (n > 1) {
+                    Set<UUID> before = serverIds(driver);
+
+                    long joinStart = System.nanoTime();
+
+                    if (fork)
+                        forked.add(fork("node-" + (n - 1), driver, n));
+                    else
+                        locNodes.add(ClusterHarness.startNode("node-" + (n - 1)));
+
+                    joinNanos = System.nanoTime() - joinStart;
+
+                    UUID newNode = serverIds(driver).stream()
+                        .filter(id -> !before.contains(id))
+                        .findFirst()
+                        .orElseThrow(() -> new IgniteException("New node has not joined."));
+
+                    long rebalanceStart = System.nanoTime();
+
+                    if (!driver.compute(driver.cluster().forNodeId(newNode)).call(new AwaitRebalance()))
+                        throw new IgniteException("Rebalance has not finished on node " + (n - 1) + '.');
+
+                    rebalanceNanos = System.nanoTime() - rebalanceStart;
+                }
+
+                // Warm up.
+                runWorkload(cache, workload, persons, Math.max(ops / 10, 1), threads);
+
+                long[] latencies = new long[ops];
+
+                long start = System.nanoTime();
+
+                runWorkload(cache, workload, persons, latencies, threads);
+
+                long total = System.nanoTime() - start;
+
+                Arrays.sort(latencies);
+
+                report.add(String.format("%5d %10d %12d %12.1f %10d %10d %10d",
+                    n, millis(joinNanos), millis(rebalanceNanos), ops * 1e9 / total,
+                    micros(latencies[latencies.length / 2]),
+                    micros(latencies[(int)(latencies.length * 0.99)]),
+                    micros(latencies[latencies.length - 1])));
+
+                print("Finished " + workload + " with " + n + " node(s).");
+            }
+
+            print("Cluster scaling (" + workload + ", " + persons + " persons, " + threads + " threads, " +
+                (fork ? "forked JVMs" : "single JVM") + "):");
+
+            report.forEach(System.out::println);
+        }
+        finally {
+            for (Process p : forked)
+                p.destroy();
+
+            for (int i = locNodes.size() - 1; i >= 0; i--)
+                locNodes.get(i).close();
+        }
+    }
+
+    /**
+     * Runs warm up operations without recording latencies.
+     *
+     * @param cache Persons cache.
+     * @param workload Workload.
+     * @param persons Number of persons.
+     * @param ops Number of operations.
+     * @param threads Number of threads.
+     * @throws Exception If failed.
+     */
+    private static void runWorkload(IgniteCache<AffinityKey<Long>, Person> cache, Workload workload, int persons,
+        int ops, int threads) throws Exception {
+        runWorkload(cache, workload, persons, new long[ops], threads);
+    }
+
+    /**
+     * Runs {@code latencies.length} operations split between {@code threads} threads.
+     *
+     * @param cache Persons cache.
+     * @param workload Workload.
+     * @param persons Number of persons.
+     * @param latencies Array to store latency of every operation to, in nanoseconds.
+     * @param threads Number of threads.
+     * @throws Exception If failed.
+     */
+    private static void runWorkload(IgniteCache<AffinityKey<Long>, Person> cache, Workload workload, int persons,
+        long[] latencies, int threads) throws Exception {
+        ExecutorService exec = Executors.newFixedThreadPool(threads);
+
+        try {
+            List<Future<?>> futs = new ArrayList<>();
+
+            for (int t = 0; t < threads; t++) {
+                int from = latencies.length * t / threads;
+                int to = latencies.length * (t + 1) / threads;
+
+                futs.add(exec.submit(() -> {
+                    for (int i = from; i < to; i++) {
+                        long start = System.nanoTime();
+
+                        workload.run(cache, persons);
+
+                        latencies[i] = System.nanoTime() - start;
+                    }
+                }));
+            }
+
+            for (Future<?> fut : futs)
+                fut.get();
+        }
+        finally {
+            exec.shutdownNow();
+        }
+    }
+
+    /**
+     * Forks JVM running {@link ClusterNodeStartup} and waits until it joins the cluster.
+     *
+     * @param name Ignite instance name.
+     * @param driver Driver node.
+     * @param expSrvs Expected number of server nodes after join.
+     * @return Forked process.
+     * @throws Exception If failed.
+     */
+    private static Process fork(String name, Ignite driver, int expSrvs) throws Exception {
+        List<String> cmd = new ArrayList<>();
+
+        cmd.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        cmd.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        cmd.add("-cp");
+        cmd.add(System.getProperty("java.class.path"));
+        cmd.add(ClusterNodeStartup.class.getName());
+        cmd.add(name);
+
+        Process proc = new ProcessBuilder(cmd)
+            .redirectErrorStream(true)
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .start();
+
+        long deadline = System.currentTimeMillis() + JOIN_TIMEOUT;
+
+        while (driver.cluster().forServers().nodes().size() < expSrvs) {
+            if (!proc.isAlive() || System.currentTimeMillis() > deadline) {
+                proc.destroy();
+
+                throw new IgniteException("Forked node failed to join: " + name);
+            }
+
+            Thread.sleep(50);
+        }
+
+        return proc;
+    }
+
+    /**
+     * @param ignite Ignite.
+     * @return IDs of server nodes in current topology.
+     */
+    private static Set<UUID> serverIds(Ignite ignite) {
+        return ignite.cluster().forServers().nodes().stream().map(ClusterNode::id).collect(Collectors.toSet());
+    }
+
+    /**
+     * @param nanos Nanoseconds.
+     * @return Milliseconds.
+     */
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    /**
+     * @param nanos Nanoseconds.
+     * @return Microseconds.
+     */
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    /**
+     * Prints message.
+     *
+     * @param msg Message.
+     */
+    private static void print(String msg) {
+        System.out.println();
+        System.out.println(">>> " + msg);
+    }
+
+    /**
+     * Waits on the node it is executed on until the rebalance triggered by its join has moved every
+     * partition of persons cache there.
+     */
+    private static class AwaitRebalance implements IgniteCallable<Boolean> {
+        /** */
+        private static final long serialVersionUID = 0L;
+
+        /** {@inheritDoc} */
+        @Override public Boolean call() throws Exception {
+            IgniteCache<?, ?> cache = Ignition.localIgnite().cache(CacheQueryExample.PERSON_CACHE);
+
+            long deadline = System.currentTimeMillis() + JOIN_TIMEOUT;
+
+            while (cache.localMetrics().getRebalancingPartitionsCount() > 0) {
+                if (System.currentTimeMillis() > deadline)
+                    return false;
+
+                Thread.sleep(10);
+            }
+
+            return true;
+        }
+    }
+}
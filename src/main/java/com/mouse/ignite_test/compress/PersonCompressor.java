@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.compress;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import com.mouse.ignite_test.model.CompactPerson;
+import com.mouse.ignite_test.model.Person;
+import org.apache.ignite.Ignite;
+
+/**
+ * Converts persons into {@link CompactPerson}s with a chosen set of encoded string fields
+ * and builds scan filters that run on the encoded form.
+ */
+public class PersonCompressor {
+    /** Dictionary. */
+    private final StringDictionary dict;
+
+    /** Encoded fields. */
+    private final Set<CompactPerson.Field> encoded;
+
+    /**
+     * Starts the dictionary on the node if needed and creates compressor.
+     *
+     * @param ignite Ignite.
+     * @param encoded Fields to encode, others are stored as is.
+     */
+    public PersonCompressor(Ignite ignite, Set<CompactPerson.Field> encoded) {
+        dict = StringDictionary.start(ignite);
+
+        this.encoded = encoded.isEmpty() ? EnumSet.noneOf(CompactPerson.Field.class) : EnumSet.copyOf(encoded);
+    }
+
+    /**
+     * @return Dictionary.
+     */
+    public StringDictionary dictionary() {
+        return dict;
+    }
+
+    /**
+     * @param p Person.
+     * @return Compact person.
+     */
+    public CompactPerson compress(Person p) {
+        return new CompactPerson(p, dict, encoded);
+    }
+
+    /**
+     * @param field Field.
+     * @param val Value.
+     * @return Scan filter matching persons with field equal to {@code val}.
+     */
+    public StringFieldFilter eq(CompactPerson.Field field, String val) {
+        return StringFieldFilter.eq(dict, field, val);
+    }
+
+    /**
+     * @param field Field.
+     * @param prefix Prefix.
+     * @return Scan filter matching persons with field starting with {@code prefix}.
+     */
+    public StringFieldFilter startsWith(CompactPerson.Field field, String prefix) {
+        return StringFieldFilter.startsWith(dict, field, prefix);
+    }
+}
@@ -0,0 +1,297 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.compress;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import javax.cache.Cache;
+
+import com.mouse.ignite_test.cluster.ClusterHarness;
+import com.mouse.ignite_test.model.CompactPerson;
+import com.mouse.ignite_test.model.Person;
+import lombok.val;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.IgniteDataStreamer;
+import org.apache.ignite.Ignition;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.cache.affinity.AffinityKey;
+import org.apache.ignite.cache.query.QueryCursor;
+import org.apache.ignite.cache.query.ScanQuery;
+import org.apache.ignite.configuration.CacheConfiguration;
+import org.apache.ignite.configuration.DataRegionConfiguration;
+import org.apache.ignite.configuration.IgniteConfiguration;
+import org.apache.ignite.internal.binary.BinaryObjectImpl;
+import org.apache.ignite.lang.IgniteBiPredicate;
+import org.springframework.util.StopWatch;
+
+/**
+ * Compares persons stored as is with {@link CompactPerson}s that encode first name, last name
+ * and resume with {@link StringDictionary}.
+ * <p>
+ * Reports binary value size, off-heap bytes per entry and throughput of three scans: full scan
+ * that deserializes every person and reads its last name, scan with last name equality filter
+ * and scan with last name prefix filter, both evaluated in binary form.
+ * <p>
+ * Arguments (all optional, positional): persons (default {@code 500000}), organizations (default {@code 100}),
+ * scan repetitions (default {@code 5}).
+ */
+public class StringCompressionBenchmark {
+    /** Cache with plain persons. */
+    private static final String PLAIN_CACHE = "StringCompressionBenchmarkPlain";
+
+    /** Cache with compact persons. */
+    private static final String COMPACT_CACHE = "StringCompressionBenchmarkCompact";
+
+    /**
+     * Executes benchmark.
+     *
+     * @param args Command line arguments, see class description.
+     */
+    public static void main(String[] args) {
+        int persons = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        int orgs = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int reps = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        IgniteConfiguration cfg = ClusterHarness.configuration("compression-bench");
+
+        // Every cache gets its own region so allocated memory can be attributed to it.
+        cfg.getDataStorageConfiguration().setDataRegionConfigurations(
+            region(PLAIN_CACHE),
+            region(COMPACT_CACHE));
+
+        try (Ignite ignite = Ignition.start(cfg)) {
+            IgniteCache<AffinityKey<Long>, Person> plainCache = ignite.getOrCreateCache(
+                new CacheConfiguration<AffinityKey<Long>, Person>(PLAIN_CACHE).setDataRegionName(PLAIN_CACHE));
+
+            IgniteCache<AffinityKey<Long>, CompactPerson> compactCache = ignite.getOrCreateCache(
+                new CacheConfiguration<AffinityKey<Long>, CompactPerson>(COMPACT_CACHE).setDataRegionName(COMPACT_CACHE));
+
+            PersonCompressor compressor = new PersonCompressor(ignite, EnumSet.allOf(CompactPerson.Field.class));
+
+            Random r = new Random(42);
+
+            List<Person> list = new ArrayList<>(persons);
+
+            for (long id = 1; id <= persons; id++)
+                list.add(ClusterHarness.person(id, orgs, r));
+
+            val sw = new StopWatch();
+
+            sw.start("load plain");
+            try (IgniteDataStreamer<AffinityKey<Long>, Person> streamer = ignite.dataStreamer(PLAIN_CACHE)) {
+                for (Person p : list)
+                    streamer.addData(p.key(), p);
+            }
+            sw.stop();
+
+            sw.start("load compact (with encoding)");
+            try (IgniteDataStreamer<AffinityKey<Long>, CompactPerson> streamer = ignite.dataStreamer(COMPACT_CACHE)) {
+                for (Person p : list)
+                    streamer.addData(p.key(), compressor.compress(p));
+            }
+            sw.stop();
+
+            Person sample = list.get(list.size() / 2);
+
+            CompactPerson decoded = compactCache.get(sample.key());
+
+            if (!sample.toString().equals(decoded.toPerson().toString()))
+                throw new IllegalStateException("Decoded person differs: " + sample + " != " + decoded);
+
+            long plainLen = 0;
+            long compactLen = 0;
+            int samples = Math.min(persons, 10_000);
+
+            for (int i = 0; i < samples; i++) {
+                Person p = list.get(i * (persons / samples));
+
+                plainLen += ((BinaryObjectImpl)ignite.binary().toBinary(p)).length();
+                compactLen += ((BinaryObjectImpl)ignite.binary().toBinary(compressor.compress(p))).length();
+            }
+
+            String eqVal = sample.lastName;
+            String prefix = eqVal.substring(0, Math.min(eqVal.length(), 5));
+
+            IgniteBiPredicate<Object, BinaryObject> plainEq = new RawFilter("lastName", eqVal, false);
+            IgniteBiPredicate<Object, BinaryObject> plainPrefix = new RawFilter("lastName", prefix, true);
+            IgniteBiPredicate<Object, BinaryObject> compactEq = compressor.eq(CompactPerson.Field.LAST_NAME, eqVal);
+            IgniteBiPredicate<Object, BinaryObject> compactPrefix =
+                compressor.startsWith(CompactPerson.Field.LAST_NAME, prefix);
+
+            // Warm up.
+            scanPlain(plainCache);
+            scanCompact(compactCache);
+
+            long chars = 0;
+
+            sw.start("full scan plain x" + reps);
+            for (int i = 0; i < reps; i++)
+                chars += scanPlain(plainCache);
+            sw.stop();
+
+            sw.start("full scan compact x" + reps);
+            for (int i = 0; i < reps; i++)
+                chars -= scanCompact(compactCache);
+            sw.stop();
+
+            long plainEqCnt = 0;
+            long compactEqCnt = 0;
+            long plainPrefixCnt = 0;
+            long compactPrefixCnt = 0;
+
+            sw.start("eq filter plain x" + reps);
+            for (int i = 0; i < reps; i++)
+                plainEqCnt += count(plainCache, plainEq);
+            sw.stop();
+
+            sw.start("eq filter compact x" + reps);
+            for (int i = 0; i < reps; i++)
+                compactEqCnt += count(compactCache, compactEq);
+            sw.stop();
+
+            sw.start("prefix filter plain x" + reps);
+            for (int i = 0; i < reps; i++)
+                plainPrefixCnt += count(plainCache, plainPrefix);
+            sw.stop();
+
+            sw.start("prefix filter compact x" + reps);
+            for (int i = 0; i < reps; i++)
+                compactPrefixCnt += count(compactCache, compactPrefix);
+            sw.stop();
+
+            if (chars != 0 || plainEqCnt != compactEqCnt || plainPrefixCnt != compactPrefixCnt)
+                throw new IllegalStateException("Scan results differ [chars=" + chars +
+                    ", eq=" + plainEqCnt + '/' + compactEqCnt + ", prefix=" + plainPrefixCnt + '/' + compactPrefixCnt + ']');
+
+            long plainSize = ignite.dataRegionMetrics(PLAIN_CACHE).getTotalAllocatedSize();
+            long compactSize = ignite.dataRegionMetrics(COMPACT_CACHE).getTotalAllocatedSize();
+
+            System.out.println();
+            System.out.println(">>> Dictionary stems: " + compressor.dictionary().stems().size());
+            System.out.println(">>> Binary value bytes: plain=" + plainLen / samples + ", compact=" + compactLen / samples);
+            System.out.println(">>> Allocated off-heap bytes per entry: plain=" + plainSize / persons +
+                ", compact=" + compactSize / persons);
+            System.out.println(">>> Matches per scan: eq=" + plainEqCnt / reps + " (lastName=" + eqVal + "), prefix=" +
+                plainPrefixCnt / reps + " (lastName like " + prefix + "%)");
+
+            for (StopWatch.TaskInfo task : sw.getTaskInfo()) {
+                if (task.getTaskName().contains("scan") || task.getTaskName().contains("filter")) {
+                    System.out.printf(">>> %-28s %,12.0f rows/s%n", task.getTaskName(),
+                        (double)persons * reps / task.getTimeSeconds());
+                }
+            }
+
+            System.out.println(sw.prettyPrint());
+        }
+    }
+
+    /**
+     * @param cache Cache.
+     * @return Total length of last names.
+     */
+    private static long scanPlain(IgniteCache<AffinityKey<Long>, Person> cache) {
+        long chars = 0;
+
+        try (QueryCursor<Cache.Entry<AffinityKey<Long>, Person>> cur = cache.query(new ScanQuery<>())) {
+            for (Cache.Entry<AffinityKey<Long>, Person> e : cur)
+                chars += e.getValue().lastName.length();
+        }
+
+        return chars;
+    }
+
+    /**
+     * @param cache Cache.
+     * @return Total length of last names.
+     */
+    private static long scanCompact(IgniteCache<AffinityKey<Long>, CompactPerson> cache) {
+        long chars = 0;
+
+        try (QueryCursor<Cache.Entry<AffinityKey<Long>, CompactPerson>> cur = cache.query(new ScanQuery<>())) {
+            for (Cache.Entry<AffinityKey<Long>, CompactPerson> e : cur)
+                chars += e.getValue().lastName().length();
+        }
+
+        return chars;
+    }
+
+    /**
+     * @param cache Cache.
+     * @param filter Filter over binary values.
+     * @return Number of matching entries.
+     */
+    private static long count(IgniteCache<?, ?> cache, IgniteBiPredicate<Object, BinaryObject> filter) {
+        long cnt = 0;
+
+        try (QueryCursor<?> cur = cache.withKeepBinary().query(new ScanQuery<>(filter))) {
+            for (Object ignored : cur)
+                cnt++;
+        }
+
+        return cnt;
+    }
+
+    /**
+     * @param name Region name.
+     * @return Region configuration with metrics enabled.
+     */
+    private static DataRegionConfiguration region(String name) {
+        return new DataRegionConfiguration()
+            .setName(name)
+            .setMaxSize(ClusterHarness.DEFAULT_REGION_SIZE)
+            .setMetricsEnabled(true);
+    }
+
+    /**
+     * Equality or prefix filter over a string field stored as is.
+     */
+    private static class RawFilter implements IgniteBiPredicate<Object, BinaryObject> {
+        /** */
+        private static final long serialVersionUID = 0L;
+
+        /** Field name. */
+        private final String field;
+
+        /** Value or prefix. */
+        private final String val;
+
+        /** Whether {@link #val} is a prefix. */
+        private final boolean prefix;
+
+        /**
+         * @param field Field name.
+         * @param val Value or prefix.
+         * @param prefix Whether {@code val} is a prefix.
+         */
+        RawFilter(String field, String val, boolean prefix) {
+            this.field = field;
+            this.val = val;
+            this.prefix = prefix;
+        }
+
+        /** {@inheritDoc} */
+        @Override public boolean apply(Object key, BinaryObject p) {
+            String s = p.field(field);
+
+            return s != null && (prefix ? s.startsWith(val) : s.equals(val));
+        }
+    }
+}
@@ -0,0 +1,393 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.compress;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.cache.Cache;
+
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteAtomicSequence;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.IgniteException;
+import org.apache.ignite.cache.CacheMode;
+import org.apache.ignite.configuration.CacheConfiguration;
+import org.apache.ignite.internal.GridKernalState;
+import org.apache.ignite.internal.IgniteEx;
+
+/**
+ * Cluster-wide dictionary that encodes a string into a single {@code long}.
+ * <p>
+ * A string is split into a stem and a numeric tail: the trailing decimal digits, at most
+ * {@link #MAX_TAIL_DIGITS} and without leading zeros. The stem is replaced with a dictionary
+ * code, the tail is stored as a number, so {@code "Doe12345"} becomes code of {@code "Doe"} and
+ * {@code 12345}. Strings without a tail are plain dictionary entries. Encoded value layout:
+ * <pre>
+ * bit  63      always 0
+ * bits 44..62  stem code, 1-based
+ * bits 0..43   tail + 1, or 0 if there is no tail
+ * </pre>
+ * {@code null} is encoded as {@code 0}. Encoding is exact: {@link #decode(long)} returns a string
+ * equal to the encoded one.
+ * <p>
+ * Stems are kept in two replicated caches and numbered with an atomic sequence, so every node
+ * encodes a stem to the same code. Codes are cached locally; a stem is never removed or renumbered.
+ * Encoded values can be compared without the dictionary with {@link #code(long)} and {@link #tail(long)}.
+ * <p>
+ * Dictionary pays off for fields with few distinct stems, such as generated or templated names;
+ * a field with mostly unique text grows the dictionary by one entry per value and should be stored as is.
+ * To bound the dictionary, {@link #encode(String)} refuses stems longer than {@link #MAX_STEM_LENGTH}
+ * and new stems once {@link #MAX_CODE} stems exist; such strings are left to the caller to store as is.
+ */
+public class StringDictionary {
+    /** Stem to code cache name. */
+    public static final String CODES_CACHE = "StringDictionaryCodes";
+
+    /** Code to stem cache name. */
+    public static final String STEMS_CACHE = "StringDictionaryStems";
+
+    /** Code sequence name. */
+    private static final String SEQ_NAME = "StringDictionarySeq";
+
+    /** Max number of digits in the tail. */
+    public static final int MAX_TAIL_DIGITS = 13;
+
+    /** Position of the stem code. */
+    private static final int CODE_SHIFT = 44;
+
+    /** Tail mask. */
+    private static final long TAIL_MASK = (1L << CODE_SHIFT) - 1;
+
+    /** Max stem code. */
+    public static final int MAX_CODE = (1 << (63 - CODE_SHIFT)) - 1;
+
+    /** Max stem length, longer stems are not added to the dictionary. */
+    public static final int MAX_STEM_LENGTH = 64;
+
+    /** Dictionaries started in this JVM, by node. */
+    private static final Map<Ignite, StringDictionary> started = new ConcurrentHashMap<>();
+
+    /** Dictionary used by this JVM, one of {@link #started}. */
+    private static volatile StringDictionary local;
+
+    /** Node the dictionary was started on. */
+    private final Ignite ignite;
+
+    /** Stem to code. */
+    private final IgniteCache<String, Integer> codeCache;
+
+    /** Code to stem. */
+    private final IgniteCache<Integer, String> stemCache;
+
+    /** Code sequence. */
+    private final IgniteAtomicSequence seq;
+
+    /** Locally known codes. */
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+
+    /** Locally known stems by code, grown under {@code this} lock. */
+    private volatile String[] stems = new String[1024];
+
+    /** Whether all codes are taken. */
+    private volatile boolean full;
+
+    /**
+     * @param ignite Ignite.
+     */
+    private StringDictionary(Ignite ignite) {
+        this.ignite = ignite;
+
+        codeCache = ignite.getOrCreateCache(new CacheConfiguration<String, Integer>(CODES_CACHE)
+            .setCacheMode(CacheMode.REPLICATED));
+        stemCache = ignite.getOrCreateCache(new CacheConfiguration<Integer, String>(STEMS_CACHE)
+            .setCacheMode(CacheMode.REPLICATED));
+        seq = ignite.atomicSequence(SEQ_NAME, 0, true);
+    }
+
+    /**
+     * Starts dictionary on the node. Model classes decode their fields with the dictionary
+     * returned by {@link #local()}, so it must be started before they are read. Subsequent calls
+     * for the same node return the already started dictionary.
+     *
+     * @param ignite Ignite.
+     * @return Dictionary.
+     */
+    public static synchronized StringDictionary start(Ignite ignite) {
+        removeStopped();
+
+        StringDictionary dict = started.computeIfAbsent(ignite, StringDictionary::new);
+
+        if (local == null)
+            local = dict;
+
+        return dict;
+    }
+
+    /**
+     * Dictionary of any running node of this JVM: all nodes in the JVM belong to the same cluster,
+     * so they share the same stems. Dictionaries of stopped nodes are dropped.
+     *
+     * @return Dictionary started in this JVM.
+     * @throws IllegalStateException If dictionary was not started on any running node.
+     */
+    public static StringDictionary local() {
+        StringDictionary dict = local;
+
+        return dict != null && !dict.stopped() ? dict : nextLocal();
+    }
+
+    /**
+     * @return Dictionary of a running node.
+     * @throws IllegalStateException If there is none.
+     */
+    private static synchronized StringDictionary nextLocal() {
+        removeStopped();
+
+        Iterator<StringDictionary> it = started.values().iterator();
+
+        local = it.hasNext() ? it.next() : null;
+
+        if (local == null)
+            throw new IllegalStateException("String dictionary is not started, call StringDictionary.start(ignite).");
+
+        return local;
+    }
+
+    /**
+     * Drops dictionaries of stopped nodes.
+     */
+    private static void removeStopped() {
+        started.values().removeIf(StringDictionary::stopped);
+
+        if (local != null && local.stopped())
+            local = null;
+    }
+
+    /**
+     * @return Whether the node of the dictionary is stopping or stopped.
+     */
+    private boolean stopped() {
+        GridKernalState state = ((IgniteEx)ignite).context().gateway().getState();
+
+        return state == GridKernalState.STOPPING || state == GridKernalState.STOPPED;
+    }
+
+    /**
+     * Encodes string, adding its stem to the dictionary if needed.
+     *
+     * @param s String.
+     * @return Encoded value or {@code -1} if the stem is too long or the dictionary is full,
+     * so the string should be stored as is.
+     */
+    public long encode(String s) {
+        if (s == null)
+            return 0;
+
+        int split = split(s);
+
+        if (split > MAX_STEM_LENGTH)
+            return -1;
+
+        int code = code(split == s.length() ? s : s.substring(0, split), true);
+
+        return code < 0 ? -1 : encode(s, split, code);
+    }
+
+    /**
+     * Encodes string only if its stem is already in the dictionary.
+     *
+     * @param s String.
+     * @return Encoded value or {@code -1} if stem is unknown, so no encoded value equals {@code s}.
+     */
+    public long lookup(String s) {
+        if (s == null)
+            return 0;
+
+        int split = split(s);
+
+        if (split > MAX_STEM_LENGTH)
+            return -1;
+
+        int code = code(split == s.length() ? s : s.substring(0, split), false);
+
+        return code < 0 ? -1 : encode(s, split, code);
+    }
+
+    /**
+     * @param val Encoded value.
+     * @return Decoded string.
+     */
+    public String decode(long val) {
+        if (val == 0)
+            return null;
+
+        String stem = stem(code(val));
+        long tail = tail(val);
+
+        return tail < 0 ? stem : stem + tail;
+    }
+
+    /**
+     * @param code Stem code.
+     * @return Stem.
+     */
+    public String stem(int code) {
+        String[] arr = stems;
+
+        String stem = code < arr.length ? arr[code] : null;
+
+        return stem != null ? stem : loadStem(code);
+    }
+
+    /**
+     * @return Snapshot of all stems in the cluster, by code.
+     */
+    public Map<Integer, String> stems() {
+        Map<Integer, String> res = new TreeMap<>();
+
+        for (Cache.Entry<String, Integer> e : codeCache)
+            res.put(e.getValue(), e.getKey());
+
+        return res;
+    }
+
+    /**
+     * @param val Encoded value, not {@code 0}.
+     * @return Stem code.
+     */
+    public static int code(long val) {
+        return (int)(val >>> CODE_SHIFT);
+    }
+
+    /**
+     * @param val Encoded value, not {@code 0}.
+     * @return Numeric tail or {@code -1} if there is none.
+     */
+    public static long tail(long val) {
+        return (val & TAIL_MASK) - 1;
+    }
+
+    /**
+     * @param s String.
+     * @return Length of the stem.
+     */
+    static int split(String s) {
+        int end = s.length();
+        int start = end;
+
+        while (start > 0 && end - start < MAX_TAIL_DIGITS && isDigit(s.charAt(start - 1)))
+            start--;
+
+        // Leading zeros would be lost in the number, keep them in the stem.
+        while (start < end - 1 && s.charAt(start) == '0')
+            start++;
+
+        return start;
+    }
+
+    /**
+     * @param c Character.
+     * @return Whether character is an ASCII digit.
+     */
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * @param s String.
+     * @param split Length of the stem.
+     * @param code Stem code.
+     * @return Encoded value.
+     */
+    static long encode(String s, int split, int code) {
+        long tail = 0;
+
+        for (int i = split; i < s.length(); i++)
+            tail = tail * 10 + (s.charAt(i) - '0');
+
+        return ((long)code << CODE_SHIFT) | (split == s.length() ? 0 : tail + 1);
+    }
+
+    /**
+     * @param stem Stem.
+     * @param create Whether to add unknown stem.
+     * @return Code or {@code -1} if stem is unknown and {@code create} is {@code false} or the dictionary is full.
+     */
+    private int code(String stem, boolean create) {
+        Integer code = codes.get(stem);
+
+        if (code != null)
+            return code;
+
+        code = codeCache.get(stem);
+
+        if (code == null) {
+            if (!create || full)
+                return -1;
+
+            long next = seq.incrementAndGet();
+
+            if (next > MAX_CODE) {
+                full = true;
+
+                return -1;
+            }
+
+            // Stem is written before the code is published, so any node that sees the code can decode it.
+            stemCache.put((int)next, stem);
+
+            Integer prev = codeCache.getAndPutIfAbsent(stem, (int)next);
+
+            code = prev == null ? (int)next : prev;
+        }
+
+        codes.put(stem, code);
+
+        return code;
+    }
+
+    /**
+     * @param code Code.
+     * @return Stem.
+     */
+    private synchronized String loadStem(int code) {
+        String stem = stemCache.get(code);
+
+        if (stem == null)
+            throw new IgniteException("Unknown string dictionary code: " + code);
+
+        String[] arr = stems;
+
+        if (code >= arr.length) {
+            String[] newArr = new String[Math.max(code + 1, arr.length * 2)];
+
+            System.arraycopy(arr, 0, newArr, 0, arr.length);
+
+            arr = newArr;
+        }
+
+        // Strings are immutable, readers that race with this write see either null or the stem.
+        arr[code] = stem;
+
+        stems = arr;
+
+        return stem;
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.compress;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import com.mouse.ignite_test.model.CompactPerson;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.lang.IgniteBiPredicate;
+
+/**
+ * Scan filter that matches a string field of {@link CompactPerson} in binary form by equality or prefix.
+ * <p>
+ * All dictionary lookups happen when the filter is created, so nodes evaluate it on encoded values
+ * only: equality is one {@code long} comparison, prefix is a lookup of the stem code among codes of
+ * matching stems and, for stems that are a prefix of the requested prefix, a numeric comparison of
+ * the tail. Persons that store the field as is are compared as strings.
+ */
+public class StringFieldFilter implements IgniteBiPredicate<Object, BinaryObject> {
+    /** */
+    private static final long serialVersionUID = 0L;
+
+    /** Powers of ten up to the max tail length. */
+    private static final long[] POW10 = new long[StringDictionary.MAX_TAIL_DIGITS + 1];
+
+    static {
+        POW10[0] = 1;
+
+        for (int i = 1; i < POW10.length; i++)
+            POW10[i] = POW10[i - 1] * 10;
+    }
+
+    /** Field. */
+    private final CompactPerson.Field field;
+
+    /** String or prefix. */
+    private final String val;
+
+    /** Whether {@link #val} is a prefix. */
+    private final boolean prefix;
+
+    /** Encoded value for equality, {@code -1} if there is none. */
+    private final long code;
+
+    /** Sorted codes of stems that start with the prefix. */
+    private final int[] stemCodes;
+
+    /** Codes of stems the prefix starts with, followed by digits only. */
+    private final int[] partialCodes;
+
+    /** Digits following the stem in the prefix, as a number. */
+    private final long[] partialTails;
+
+    /** Number of digits following the stem in the prefix. */
+    private final int[] partialDigits;
+
+    /**
+     * @param field Field.
+     * @param val String or prefix.
+     * @param prefix Whether {@code val} is a prefix.
+     * @param code Encoded value for equality.
+     * @param stemCodes Sorted codes of stems that start with prefix.
+     * @param partialCodes Codes of stems the prefix starts with.
+     * @param partialTails Digits following the stem in the prefix.
+     * @param partialDigits Number of digits following the stem in the prefix.
+     */
+    private StringFieldFilter(CompactPerson.Field field, String val, boolean prefix, long code, int[] stemCodes,
+        int[] partialCodes, long[] partialTails, int[] partialDigits) {
+        this.field = field;
+        this.val = val;
+        this.prefix = prefix;
+        this.code = code;
+        this.stemCodes = stemCodes;
+        this.partialCodes = partialCodes;
+        this.partialTails = partialTails;
+        this.partialDigits = partialDigits;
+    }
+
+    /**
+     * @param dict Dictionary.
+     * @param field Field.
+     * @param val Value, not {@code null}.
+     * @return Filter matching persons with field equal to {@code val}.
+     */
+    public static StringFieldFilter eq(StringDictionary dict, CompactPerson.Field field, String val) {
+        return new StringFieldFilter(field, val, false, dict.lookup(val), null, null, null, null);
+    }
+
+    /**
+     * @param dict Dictionary.
+     * @param field Field.
+     * @param prefix Prefix, not {@code null}.
+     * @return Filter matching persons with field starting with {@code prefix}.
+     */
+    public static StringFieldFilter startsWith(StringDictionary dict, CompactPerson.Field field, String prefix) {
+        int[] stemCodes = new int[16];
+        int stemCnt = 0;
+
+        int[] partialCodes = new int[4];
+        long[] partialTails = new long[4];
+        int[] partialDigits = new int[4];
+        int partialCnt = 0;
+
+        // Stems are scanned in code order, so stemCodes stays sorted.
+        for (Map.Entry<Integer, String> e : dict.stems().entrySet()) {
+            String stem = e.getValue();
+
+            if (stem.startsWith(prefix)) {
+                if (stemCnt == stemCodes.length)
+                    stemCodes = Arrays.copyOf(stemCodes, stemCnt * 2);
+
+                stemCodes[stemCnt++] = e.getKey();
+            }
+            else if (prefix.startsWith(stem)) {
+                int digits = prefix.length() - stem.length();
+
+                if (digits > StringDictionary.MAX_TAIL_DIGITS || !isDigits(prefix, stem.length()))
+                    continue;
+
+                if (partialCnt == partialCodes.length) {
+                    partialCodes = Arrays.copyOf(partialCodes, partialCnt * 2);
+                    partialTails = Arrays.copyOf(partialTails, partialCnt * 2);
+                    partialDigits = Arrays.copyOf(partialDigits, partialCnt * 2);
+                }
+
+                partialCodes[partialCnt] = e.getKey();
+                partialTails[partialCnt] = Long.parseLong(prefix.substring(stem.length()));
+                partialDigits[partialCnt++] = digits;
+            }
+        }
+
+        return new StringFieldFilter(field, prefix, true, -1, Arrays.copyOf(stemCodes, stemCnt),
+            Arrays.copyOf(partialCodes, partialCnt), Arrays.copyOf(partialTails, partialCnt),
+            Arrays.copyOf(partialDigits, partialCnt));
+    }
+
+    /** {@inheritDoc} */
+    @Override public boolean apply(Object key, BinaryObject p) {
+        Long enc = p.field(field.codeField());
+
+        if (enc == null) {
+            String s = p.field(field.rawField());
+
+            return s != null && (prefix ? s.startsWith(val) : s.equals(val));
+        }
+
+        if (!prefix)
+            return enc == code;
+
+        if (enc == 0)
+            return false;
+
+        int stem = StringDictionary.code(enc);
+
+        if (Arrays.binarySearch(stemCodes, stem) >= 0)
+            return true;
+
+        for (int i = 0; i < partialCodes.length; i++) {
+            if (partialCodes[i] == stem && tailStartsWith(StringDictionary.tail(enc), partialTails[i], partialDigits[i]))
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * @param tail Tail or {@code -1}.
+     * @param prefix Prefix digits as a number.
+     * @param digits Number of prefix digits.
+     * @return Whether decimal form of the tail starts with prefix digits.
+     */
+    static boolean tailStartsWith(long tail, long prefix, int digits) {
+        if (tail < 0)
+            return false;
+
+        int tailDigits = 1;
+
+        while (tailDigits < POW10.length && tail >= POW10[tailDigits])
+            tailDigits++;
+
+        // Tail has no leading zeros, so comparing its head as a number is the same as comparing digits.
+        return tailDigits >= digits && tail / POW10[tailDigits - digits] == prefix;
+    }
+
+    /**
+     * @param s String.
+     * @param from Start index.
+     * @return Whether all characters from {@code from} are ASCII digits.
+     */
+    private static boolean isDigits(String s, int from) {
+        for (int i = from; i < s.length(); i++) {
+            char c = s.charAt(i);
+
+            if (c < '0' || c > '9')
+                return false;
+        }
+
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override public String toString() {
+        return "StringFieldFilter [field=" + field +
+            ", " + (prefix ? "prefix=" : "val=") + val + ']';
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.mouse.ignite_test.CacheQueryExample;
+import com.mouse.ignite_test.cluster.ClusterHarness;
+import com.mouse.ignite_test.model.Person;
+import lombok.val;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.IgniteDataStreamer;
+import org.apache.ignite.cache.affinity.AffinityKey;
+import org.apache.ignite.cache.query.SqlFieldsQuery;
+import org.springframework.util.StopWatch;
+
+/**
+ * Compares loading persons cache with all indexes maintained on every insert against
+ * {@link DeferredIndexLoader}, which loads with sorted indexes deferred and builds them afterwards.
+ * <p>
+ * Both paths are checked to answer the same indexed queries with the same results and plans.
+ * A smaller warm-up round of both paths runs first.
+ * <p>
+ * Arguments (all optional, positional): persons (default {@code 1000000}), organizations (default {@code 100}),
+ * index build threads (default number of cores).
+ */
+public class DeferredIndexBenchmark {
+    /** Queries answered by indexes. */
+    private static final String[] QUERIES = {
+        "select count(*) from Person where id between 1000 and 2000",
+        "select count(*) from Person where orgId = 7",
+        "select count(*) from Person where firstName = 'John777'",
+        "select count(*) from Person where salary between 1000 and 1010",
+        "select count(*) from Person where orgId = 7 and salary > 9000",
+    };
+
+    /**
+     * Executes benchmark.
+     *
+     * @param args Command line arguments, see class description.
+     */
+    public static void main(String[] args) {
+        int persons = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int orgs = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        try (Ignite ignite = ClusterHarness.startNode("index-bench")) {
+            List<Person> warmUp = persons(persons / 10, orgs);
+
+            loadIndexed(ignite, warmUp, new StopWatch());
+            loadDeferred(ignite, warmUp, threads, new StopWatch(), false);
+
+            List<Person> list = persons(persons, orgs);
+
+            val sw = new StopWatch();
+
+            List<String> indexed = loadIndexed(ignite, list, sw);
+            List<String> deferred = loadDeferred(ignite, list, threads, sw, true);
+
+            if (!indexed.equals(deferred))
+                throw new IllegalStateException("Results differ:\n" + indexed + "\n" + deferred);
+
+            long indexedTime = sw.getTaskInfo()[0].getTimeMillis();
+            long deferredTime = 0;
+
+            for (int i = 1; i < sw.getTaskCount(); i++)
+                deferredTime += sw.getTaskInfo()[i].getTimeMillis();
+
+            System.out.println();
+            System.out.println(">>> Query results and plans match: " + indexed);
+            System.out.println(">>> Always indexed: " + indexedTime + " ms, deferred (" + threads + " threads): " +
+                deferredTime + " ms, speedup " + String.format("%.2f", (double)indexedTime / deferredTime) + 'x');
+            System.out.println(sw.prettyPrint());
+        }
+    }
+
+    /**
+     * Loads persons into cache with all indexes.
+     *
+     * @param ignite Ignite.
+     * @param list Persons.
+     * @param sw Stop watch.
+     * @return Query results and used indexes.
+     */
+    private static List<String> loadIndexed(Ignite ignite, List<Person> list, StopWatch sw) {
+        IgniteCache<AffinityKey<Long>, Person> cache = ignite.getOrCreateCache(ClusterHarness.personCacheConfiguration());
+
+        try {
+            sw.start("load always indexed");
+            try (IgniteDataStreamer<AffinityKey<Long>, Person> streamer =
+                     ignite.dataStreamer(CacheQueryExample.PERSON_CACHE)) {
+                for (Person p : list)
+                    streamer.addData(p.key(), p);
+            }
+            sw.stop();
+
+            return check(cache);
+        }
+        finally {
+            cache.destroy();
+        }
+    }
+
+    /**
+     * Loads persons with {@link DeferredIndexLoader}.
+     *
+     * @param ignite Ignite.
+     * @param list Persons.
+     * @param threads Index build threads.
+     * @param sw Stop watch.
+     * @param print Whether to print progress.
+     * @return Query results and used indexes.
+     */
+    private static List<String> loadDeferred(Ignite ignite, List<Person> list, int threads, StopWatch sw,
+        boolean print) {
+        long[] loaded = new long[1];
+
+        DeferredIndexLoader ldr = new DeferredIndexLoader(ignite, threads, (idx, num, cnt, keys, elapsed, done) -> {
+            // First index build starts right after the load.
+            if (num == 1 && !done && elapsed == 0)
+                loaded[0] = System.currentTimeMillis();
+
+            if (print) {
+                System.out.println(">>> Index " + num + '/' + cnt + ' ' + idx.getName() + ' ' + idx.getFields().keySet() +
+                    (done ? " built in " : " building, ") + elapsed + " ms" + (keys > 0 ? ", keys: " + keys : ""));
+            }
+        });
+
+        long start = System.currentTimeMillis();
+
+        sw.start("load deferred and build " + ldr.deferredIndexes().size() + " indexes, PARALLEL " + threads);
+        IgniteCache<AffinityKey<Long>, Person> cache = ldr.load(list);
+        sw.stop();
+
+        try {
+            if (print) {
+                System.out.println(">>> Deferred load, primary key only: " + (loaded[0] - start) + " ms, index build: " +
+                    (start + sw.getLastTaskTimeMillis() - loaded[0]) + " ms");
+            }
+
+            return check(cache);
+        }
+        finally {
+            cache.destroy();
+        }
+    }
+
+    /**
+     * @param cache Cache.
+     * @return Result of every query followed by index it uses.
+     */
+    private static List<String> check(IgniteCache<AffinityKey<Long>, Person> cache) {
+        List<String> res = new ArrayList<>();
+
+        for (String sql : QUERIES) {
+            Object cnt = cache.query(new SqlFieldsQuery(sql)).getAll().get(0).get(0);
+            String plan = (String)cache.query(new SqlFieldsQuery("explain " + sql)).getAll().get(0).get(0);
+
+            int idx = plan.indexOf("/* ");
+
+            res.add(cnt + " " + (idx < 0 ? "?" : plan.substring(idx + 3, plan.indexOf(' ', idx + 3)).replace("\"", "")));
+        }
+
+        return res;
+    }
+
+    /**
+     * @param persons Number of persons.
+     * @param orgs Number of organizations.
+     * @return Generated persons.
+     */
+    private static List<Person> persons(int persons, int orgs) {
+        Random r = new Random(42);
+
+        List<Person> list = new ArrayList<>(persons);
+
+        for (long id = 1; id <= persons; id++)
+            list.add(ClusterHarness.person(id, orgs, r));
+
+        return list;
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.mouse.ignite_test.CacheQueryExample;
+import com.mouse.ignite_test.model.Person;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.IgniteDataStreamer;
+import org.apache.ignite.IgniteException;
+import org.apache.ignite.IgniteLogger;
+import org.apache.ignite.cache.CacheMode;
+import org.apache.ignite.cache.QueryEntity;
+import org.apache.ignite.cache.QueryIndex;
+import org.apache.ignite.cache.QueryIndexType;
+import org.apache.ignite.cache.affinity.AffinityKey;
+import org.apache.ignite.cache.query.SqlFieldsQuery;
+import org.apache.ignite.configuration.CacheConfiguration;
+
+/**
+ * Bulk loads persons cache with sorted secondary indexes deferred.
+ * <p>
+ * The cache is created with the same query entity as {@code @QuerySqlField} annotations of
+ * {@link Person} declare, but without sorted indexes, so a loaded row only updates the primary
+ * key tree. Once loading is done, every deferred index is created with {@code CREATE INDEX ... PARALLEL},
+ * which builds it with several threads per node, each walking its own share of local partitions.
+ * The full text index on {@code resume} cannot be created with SQL and is kept during the load.
+ * <p>
+ * {@link #load(Iterable)} and {@link #buildIndexes(IgniteCache)} return only after every index is built.
+ * Nothing else gates queries: a query run by another thread before then is not blocked but falls back
+ * to a scan, so such threads must call {@link #awaitIndexes()} first, which also rethrows a build failure.
+ * Index names are left unquoted, so, as on the always-indexed cache, they end up upper case.
+ */
+public class DeferredIndexLoader {
+    /**
+     * Index build progress listener.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        /**
+         * Called when an index build starts, periodically while it runs and when it is done.
+         *
+         * @param idx Index.
+         * @param num 1-based number of the index.
+         * @param cnt Total number of indexes to build.
+         * @param keys Keys processed so far on the local node, if reported by cache metrics.
+         * @param elapsed Time since index build started, milliseconds.
+         * @param done Whether build is done.
+         */
+        void onProgress(QueryIndex idx, int num, int cnt, long keys, long elapsed, boolean done);
+    }
+
+    /** Progress reporting interval, milliseconds. */
+    private static final long PROGRESS_INTERVAL = 1000;
+
+    /** Ignite. */
+    private final Ignite ignite;
+
+    /** Index build threads per node. */
+    private final int parallelism;
+
+    /** Progress listener. */
+    private final ProgressListener lsnr;
+
+    /** Deferred indexes. */
+    private final List<QueryIndex> deferred;
+
+    /** Released when all indexes are built or build failed. */
+    private final CountDownLatch ready = new CountDownLatch(1);
+
+    /** Index build failure. */
+    private volatile Throwable err;
+
+    /**
+     * @param ignite Ignite.
+     * @param parallelism Index build threads per node.
+     * @param lsnr Progress listener or {@code null} to log progress.
+     */
+    public DeferredIndexLoader(Ignite ignite, int parallelism, ProgressListener lsnr) {
+        this.ignite = ignite;
+        this.parallelism = parallelism;
+        this.lsnr = lsnr != null ? lsnr : logListener(ignite.log().getLogger(DeferredIndexLoader.class));
+
+        deferred = sortedIndexes(personEntity());
+    }
+
+    /**
+     * @return Persons cache configuration with sorted indexes left out.
+     */
+    public CacheConfiguration<AffinityKey<Long>, Person> cacheConfiguration() {
+        QueryEntity entity = personEntity();
+
+        List<QueryIndex> kept = new ArrayList<>(entity.getIndexes());
+
+        kept.removeIf(idx -> idx.getIndexType() == QueryIndexType.SORTED);
+
+        entity.setIndexes(kept);
+
+        CacheConfiguration<AffinityKey<Long>, Person> personCacheCfg =
+            new CacheConfiguration<>(CacheQueryExample.PERSON_CACHE);
+
+        personCacheCfg.setCacheMode(CacheMode.PARTITIONED); // Default.
+        personCacheCfg.setStatisticsEnabled(true);
+        personCacheCfg.setQueryEntities(Collections.singletonList(entity));
+
+        return personCacheCfg;
+    }
+
+    /**
+     * @return Indexes built after the load.
+     */
+    public List<QueryIndex> deferredIndexes() {
+        return Collections.unmodifiableList(deferred);
+    }
+
+    /**
+     * Creates cache, loads persons and builds deferred indexes.
+     *
+     * @param persons Persons.
+     * @return Cache, with all indexes built.
+     */
+    public IgniteCache<AffinityKey<Long>, Person> load(Iterable<Person> persons) {
+        IgniteCache<AffinityKey<Long>, Person> cache = ignite.getOrCreateCache(cacheConfiguration());
+
+        try (IgniteDataStreamer<AffinityKey<Long>, Person> streamer =
+                 ignite.dataStreamer(CacheQueryExample.PERSON_CACHE)) {
+            for (Person p : persons)
+                streamer.addData(p.key(), p);
+        }
+
+        buildIndexes(cache);
+
+        return cache;
+    }
+
+    /**
+     * Builds deferred indexes one after another, each with {@link #parallelism} threads per node.
+     * Returns when all indexes are built.
+     *
+     * @param cache Loaded cache.
+     */
+    public void buildIndexes(IgniteCache<AffinityKey<Long>, Person> cache) {
+        try {
+            build(cache);
+        }
+        catch (RuntimeException | Error e) {
+            err = e;
+
+            throw e;
+        }
+        finally {
+            ready.countDown();
+        }
+    }
+
+    /**
+     * @param cache Loaded cache.
+     */
+    private void build(IgniteCache<AffinityKey<Long>, Person> cache) {
+        for (int i = 0; i < deferred.size(); i++) {
+            QueryIndex idx = deferred.get(i);
+            int num = i + 1;
+
+            long start = System.currentTimeMillis();
+
+            lsnr.onProgress(idx, num, deferred.size(), 0, 0, false);
+
+            Thread reporter = new Thread(() -> {
+                try {
+                    while (!Thread.currentThread().isInterrupted()) {
+                        Thread.sleep(PROGRESS_INTERVAL);
+
+                        lsnr.onProgress(idx, num, deferred.size(), cache.localMetrics().getIndexRebuildKeysProcessed(),
+                            System.currentTimeMillis() - start, false);
+                    }
+                }
+                catch (InterruptedException ignored) {
+                    // Index is built.
+                }
+            }, "index-build-progress");
+
+            reporter.setDaemon(true);
+            reporter.start();
+
+            try {
+                cache.query(new SqlFieldsQuery(createIndexSql(idx))).getAll();
+            }
+            finally {
+                reporter.interrupt();
+            }
+
+            lsnr.onProgress(idx, num, deferred.size(), cache.localMetrics().getIndexRebuildKeysProcessed(),
+                System.currentTimeMillis() - start, true);
+        }
+    }
+
+    /**
+     * Waits until all deferred indexes are built.
+     *
+     * @throws InterruptedException If interrupted.
+     * @throws IgniteException If index build failed.
+     */
+    public void awaitIndexes() throws InterruptedException {
+        ready.await();
+
+        checkFailure();
+    }
+
+    /**
+     * @param timeout Timeout.
+     * @param unit Timeout unit.
+     * @return Whether indexes were built within timeout.
+     * @throws InterruptedException If interrupted.
+     * @throws IgniteException If index build failed.
+     */
+    public boolean awaitIndexes(long timeout, TimeUnit unit) throws InterruptedException {
+        if (!ready.await(timeout, unit))
+            return false;
+
+        checkFailure();
+
+        return true;
+    }
+
+    /**
+     * @throws IgniteException If index build failed.
+     */
+    private void checkFailure() {
+        Throwable e = err;
+
+        if (e != null)
+            throw new IgniteException("Deferred index build failed.", e);
+    }
+
+    /**
+     * @param idx Index.
+     * @return {@code CREATE INDEX} statement.
+     */
+    private String createIndexSql(QueryIndex idx) {
+        StringBuilder sb = new StringBuilder("CREATE INDEX IF NOT EXISTS ").append(idx.getName())
+            .append(" ON ").append(Person.class.getSimpleName()).append(" (");
+
+        boolean first = true;
+
+        for (Map.Entry<String, Boolean> f : idx.getFields().entrySet()) {
+            if (!first)
+                sb.append(", ");
+
+            sb.append(f.getKey()).append(f.getValue() ? " ASC" : " DESC");
+
+            first = false;
+        }
+
+        return sb.append(") PARALLEL ").append(parallelism).toString();
+    }
+
+    /**
+     * @return Query entity declared by {@link Person} annotations.
+     */
+    private static QueryEntity personEntity() {
+        return new QueryEntity(AffinityKey.class, Person.class);
+    }
+
+    /**
+     * @param entity Query entity.
+     * @return Sorted indexes of the entity.
+     */
+    private static List<QueryIndex> sortedIndexes(QueryEntity entity) {
+        List<QueryIndex> res = new ArrayList<>();
+
+        for (QueryIndex idx : entity.getIndexes()) {
+            if (idx.getIndexType() == QueryIndexType.SORTED)
+                res.add(idx);
+        }
+
+        return res;
+    }
+
+    /**
+     * @param log Logger.
+     * @return Listener that logs progress.
+     */
+    private static ProgressListener logListener(IgniteLogger log) {
+        return (idx, num, cnt, keys, elapsed, done) -> {
+            if (log.isInfoEnabled())
+                log.info("Index " + num + '/' + cnt + ' ' + idx.getName() + (done ? " built in " : " building, ") +
+                    elapsed + " ms" + (keys > 0 ? ", keys processed: " + keys : ""));
+        };
+    }
+}
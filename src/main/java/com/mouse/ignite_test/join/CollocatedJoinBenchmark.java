@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.join;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.mouse.ignite_test.CacheQueryExample;
+import com.mouse.ignite_test.cluster.ClusterHarness;
+import com.mouse.ignite_test.model.Person;
+import lombok.val;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.cache.affinity.AffinityKey;
+import org.apache.ignite.cache.query.SqlFieldsQuery;
+import org.springframework.util.StopWatch;
+
+/**
+ * Compares {@link CollocatedJoinExecutor} with SQL joins for "people of organization X".
+ * <p>
+ * Arguments (all optional, positional): nodes (default {@code 2}), persons (default {@code 100000}),
+ * organizations (default {@code 100}), runs per engine (default {@code 20}).
+ */
+public class CollocatedJoinBenchmark {
+    /** Join query. */
+    private static final String JOIN_SQL = "select p.id, p.firstName, o.name from Person p " +
+        "join \"" + CacheQueryExample.ORG_CACHE + "\".Organization o on p.orgId = o.id where o.name = ?";
+
+    /**
+     * Executes benchmark.
+     *
+     * @param args Command line arguments, see class description.
+     */
+    public static void main(String[] args) {
+        int nodes = args.length > 0 ? Integer.parseInt(args[0]) : 2;
+        int persons = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        int orgs = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        int runs = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+
+        List<Ignite> cluster = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < nodes; i++)
+                cluster.add(ClusterHarness.startNode("join-" + i));
+
+            Ignite ignite = cluster.get(0);
+
+            ignite.getOrCreateCache(ClusterHarness.orgCacheConfiguration());
+            IgniteCache<AffinityKey<Long>, Person> cache =
+                ignite.getOrCreateCache(ClusterHarness.personCacheConfiguration());
+
+            ClusterHarness.loadOrganizations(ignite, orgs);
+            ClusterHarness.loadPersons(ignite, persons, orgs, 42);
+
+            val exec = new CollocatedJoinExecutor(ignite);
+
+            String[] names = new String[runs];
+
+            for (int i = 0; i < runs; i++)
+                names[i] = "Org" + (1 + ThreadLocalRandom.current().nextInt(orgs));
+
+            // Warm up every engine once.
+            exec.personsOfOrganization(names[0]);
+            sql(cache, names[0], false);
+            sql(cache, names[0], true);
+
+            long rows = 0;
+            long sqlRows = 0;
+            long distributedRows = 0;
+
+            val sw = new StopWatch();
+
+            sw.start("collocated hash join");
+            for (String name : names)
+                rows += exec.personsOfOrganization(name).size();
+            sw.stop();
+
+            sw.start("sql join");
+            for (String name : names)
+                sqlRows += sql(cache, name, false);
+            sw.stop();
+
+            sw.start("sql distributed join");
+            for (String name : names)
+                distributedRows += sql(cache, name, true);
+            sw.stop();
+
+            System.out.println();
+            System.out.println(">>> Rows: collocated=" + rows + ", sql=" + sqlRows +
+                ", sql distributed=" + distributedRows);
+
+            // Persons are collocated with their organizations, so every engine must find all of them.
+            if (sqlRows != rows || distributedRows != rows)
+                throw new IllegalStateException("Join results differ: collocated=" + rows + ", sql=" + sqlRows +
+                    ", sql distributed=" + distributedRows);
+
+            System.out.println(sw.prettyPrint());
+        }
+        finally {
+            for (int i = cluster.size() - 1; i >= 0; i--)
+                cluster.get(i).close();
+        }
+    }
+
+    /**
+     * @param cache Persons cache.
+     * @param orgName Organization name.
+     * @param distributedJoins Distributed joins flag.
+     * @return Number of rows.
+     */
+    private static int sql(IgniteCache<?, ?> cache, String orgName, boolean distributedJoins) {
+        return cache.query(new SqlFieldsQuery(JOIN_SQL)
+            .setArgs(orgName)
+            .setDistributedJoins(distributedJoins)).getAll().size();
+    }
+}
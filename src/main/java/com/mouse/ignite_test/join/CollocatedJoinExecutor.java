@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.join;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import javax.cache.Cache;
+
+import com.mouse.ignite_test.CacheQueryExample;
+import com.mouse.ignite_test.model.Organization;
+import com.mouse.ignite_test.model.Person;
+import com.mouse.ignite_test.util.LongHashMap;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.cache.CachePeekMode;
+import org.apache.ignite.cache.query.IndexQuery;
+import org.apache.ignite.cache.query.QueryCursor;
+import org.apache.ignite.lang.IgniteBiPredicate;
+import org.apache.ignite.lang.IgniteBiTuple;
+import org.apache.ignite.lang.IgniteCallable;
+import org.apache.ignite.lang.IgnitePredicate;
+import org.apache.ignite.resources.IgniteInstanceResource;
+
+import static org.apache.ignite.cache.query.IndexQueryCriteriaBuilder.eq;
+
+/**
+ * Executes Organization-Person joins on the nodes that own the data.
+ * <p>
+ * {@link Person#key()} collocates every person with its organization, so the join never
+ * has to move data between nodes. Each server node builds a hash table from the organizations
+ * whose primary copy it owns and matching the organization filter, then probes its primary
+ * person entries in binary form and deserializes only the persons that join. When only a few
+ * organizations match, the probe goes through the local {@code orgId} index instead of a scan.
+ * The caller simply concatenates per-node results.
+ * <p>
+ * Like a non-distributed SQL join, results are consistent only while the topology is stable:
+ * entries moving during rebalance may be missed or seen twice.
+ */
+public class CollocatedJoinExecutor {
+    /** Max number of matching organizations per node to probe persons through {@code orgId} index. */
+    public static final int INDEX_PROBE_THRESHOLD = 16;
+
+    /** Ignite. */
+    private final Ignite ignite;
+
+    /**
+     * @param ignite Ignite.
+     */
+    public CollocatedJoinExecutor(Ignite ignite) {
+        this.ignite = ignite;
+    }
+
+    /**
+     * Joins organizations matching {@code orgFilter} with their persons.
+     *
+     * @param orgFilter Organization filter, applied on the build side.
+     * @param personFilter Optional person filter over binary form, applied on the probe side before
+     *      deserialization, {@code null} to accept all persons.
+     * @return Joined (organization, person) pairs.
+     */
+    public List<IgniteBiTuple<Organization, Person>> join(IgniteBiPredicate<Long, Organization> orgFilter,
+        IgnitePredicate<BinaryObject> personFilter) {
+        Collection<List<IgniteBiTuple<Organization, Person>>> parts =
+            ignite.compute(ignite.cluster().forDataNodes(CacheQueryExample.PERSON_CACHE))
+                .broadcast(new LocalJoinJob(orgFilter, personFilter));
+
+        List<IgniteBiTuple<Organization, Person>> res = new ArrayList<>();
+
+        for (List<IgniteBiTuple<Organization, Person>> part : parts)
+            res.addAll(part);
+
+        return res;
+    }
+
+    /**
+     * Finds persons working in organization with given name.
+     *
+     * @param orgName Organization name.
+     * @return Joined (organization, person) pairs.
+     */
+    public List<IgniteBiTuple<Organization, Person>> personsOfOrganization(String orgName) {
+        return join(new OrganizationNameFilter(orgName), null);
+    }
+
+    /**
+     * Organization filter by name.
+     */
+    private static class OrganizationNameFilter implements IgniteBiPredicate<Long, Organization> {
+        /** */
+        private static final long serialVersionUID = 0L;
+
+        /** Organization name. */
+        private final String name;
+
+        /**
+         * @param name Organization name.
+         */
+        OrganizationNameFilter(String name) {
+            this.name = name;
+        }
+
+        /** {@inheritDoc} */
+        @Override public boolean apply(Long id, Organization org) {
+            return name.equals(org.name());
+        }
+    }
+
+    /**
+     * Hash join over primary entries of the local node.
+     */
+    private static class LocalJoinJob implements IgniteCallable<List<IgniteBiTuple<Organization, Person>>> {
+        /** */
+        private static final long serialVersionUID = 0L;
+
+        /** Organization filter. */
+        private final IgniteBiPredicate<Long, Organization> orgFilter;
+
+        /** Person filter. */
+        private final IgnitePredicate<BinaryObject> personFilter;
+
+        /** Local Ignite instance. */
+        @IgniteInstanceResource
+        private transient Ignite ignite;
+
+        /**
+         * @param orgFilter Organization filter.
+         * @param personFilter Person filter.
+         */
+        LocalJoinJob(IgniteBiPredicate<Long, Organization> orgFilter, IgnitePredicate<BinaryObject> personFilter) {
+            this.orgFilter = orgFilter;
+            this.personFilter = personFilter;
+        }
+
+        /** {@inheritDoc} */
+        @Override public List<IgniteBiTuple<Organization, Person>> call() {
+            IgniteCache<Long, Organization> orgCache = ignite.cache(CacheQueryExample.ORG_CACHE);
+
+            // Build side: organizations are few, keep them in a primitive-keyed hash table.
+            LongHashMap<Organization> orgs = new LongHashMap<>();
+
+            for (Cache.Entry<Long, Organization> e : orgCache.localEntries(CachePeekMode.PRIMARY)) {
+                if (orgFilter.apply(e.getKey(), e.getValue()))
+                    orgs.put(e.getKey(), e.getValue());
+            }
+
+            List<IgniteBiTuple<Organization, Person>> res = new ArrayList<>();
+
+            if (orgs.isEmpty())
+                return res;
+
+            IgniteCache<BinaryObject, BinaryObject> personCache =
+                ignite.cache(CacheQueryExample.PERSON_CACHE).withKeepBinary();
+
+            if (orgs.size() <= INDEX_PROBE_THRESHOLD) {
+                orgs.forEach((orgId, org) -> {
+                    IndexQuery<BinaryObject, BinaryObject> qry =
+                        new IndexQuery<BinaryObject, BinaryObject>(Person.class.getName())
+                            .setCriteria(eq("orgId", orgId));
+
+                    qry.setLocal(true);
+
+                    try (QueryCursor<Cache.Entry<BinaryObject, BinaryObject>> cur = personCache.query(qry)) {
+                        for (Cache.Entry<BinaryObject, BinaryObject> e : cur)
+                            probe(e.getValue(), org, res);
+                    }
+                });
+            }
+            else {
+                // Probe side: read only orgId from the binary form, deserialize matches.
+                for (Cache.Entry<BinaryObject, BinaryObject> e : personCache.localEntries(CachePeekMode.PRIMARY)) {
+                    BinaryObject person = e.getValue();
+                    Long orgId = person.field("orgId");
+
+                    if (orgId != null)
+                        probe(person, orgs.get(orgId), res);
+                }
+            }
+
+            return res;
+        }
+
+        /**
+         * Adds person to result if it joins and passes person filter.
+         *
+         * @param person Person in binary form.
+         * @param org Organization person joins with, {@code null} if none.
+         * @param res Result.
+         */
+        private void probe(BinaryObject person, Organization org, List<IgniteBiTuple<Organization, Person>> res) {
+            if (org != null && (personFilter == null || personFilter.apply(person)))
+                res.add(new IgniteBiTuple<>(org, person.deserialize()));
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.key;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.mouse.ignite_test.cluster.ClusterHarness;
+import com.mouse.ignite_test.model.Person;
+import com.mouse.ignite_test.model.PersonKey;
+import com.mouse.ignite_test.util.LongHashMap;
+import lombok.val;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.Ignition;
+import org.apache.ignite.cache.affinity.AffinityKey;
+import org.apache.ignite.configuration.CacheConfiguration;
+import org.apache.ignite.configuration.DataRegionConfiguration;
+import org.apache.ignite.configuration.IgniteConfiguration;
+import org.apache.ignite.internal.IgniteEx;
+import org.apache.ignite.internal.binary.BinaryObjectImpl;
+import org.apache.ignite.internal.processors.cache.persistence.DataRegionMetricsImpl;
+import org.apache.ignite.internal.processors.metric.MetricRegistry;
+import org.apache.ignite.internal.processors.metric.impl.MetricUtils;
+import org.apache.ignite.spi.metric.LongMetric;
+import org.springframework.util.StopWatch;
+
+/**
+ * Compares {@link PersonKey} with {@code AffinityKey<Long>} as persons cache key.
+ * <p>
+ * Reports serialized key size, put and get throughput and the off-heap memory the cache
+ * data and SQL indexes occupy with each key, then compares {@link LongHashMap} with
+ * {@code HashMap<Long, Person>} as build side of a client-side join.
+ * <p>
+ * Arguments (all optional, positional): persons (default {@code 200000}), organizations (default {@code 100}).
+ */
+public class PersonKeyBenchmark {
+    /** Cache keyed by {@link AffinityKey}. */
+    private static final String AFFINITY_KEY_CACHE = "PersonKeyBenchmarkAffinityKey";
+
+    /** Cache keyed by {@link PersonKey}. */
+    private static final String COMPACT_KEY_CACHE = "PersonKeyBenchmarkCompactKey";
+
+    /**
+     * Executes benchmark.
+     *
+     * @param args Command line arguments, see class description.
+     */
+    public static void main(String[] args) {
+        int persons = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int orgs = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+
+        IgniteConfiguration cfg = ClusterHarness.configuration("key-bench");
+
+        // Every cache gets its own region so allocated memory can be attributed to it.
+        cfg.getDataStorageConfiguration().setDataRegionConfigurations(
+            region(AFFINITY_KEY_CACHE),
+            region(COMPACT_KEY_CACHE));
+
+        try (Ignite ignite = Ignition.start(cfg)) {
+            IgniteCache<AffinityKey<Long>, Person> affCache = ignite.getOrCreateCache(
+                new CacheConfiguration<AffinityKey<Long>, Person>(AFFINITY_KEY_CACHE)
+                    .setDataRegionName(AFFINITY_KEY_CACHE)
+                    .setIndexedTypes(AffinityKey.class, Person.class));
+
+            IgniteCache<PersonKey, Person> compactCache = ignite.getOrCreateCache(
+                new CacheConfiguration<PersonKey, Person>(COMPACT_KEY_CACHE)
+                    .setDataRegionName(COMPACT_KEY_CACHE)
+                    .setIndexedTypes(PersonKey.class, Person.class));
+
+            Random r = new Random(42);
+
+            List<Person> list = new ArrayList<>(persons);
+
+            for (long id = 1; id <= persons; id++)
+                list.add(ClusterHarness.person(id, orgs, r));
+
+            Person sample = list.get(0);
+
+            if (ignite.affinity(COMPACT_KEY_CACHE).partition(sample.compactKey()) !=
+                ignite.affinity(AFFINITY_KEY_CACHE).partition(sample.key()))
+                throw new IllegalStateException("Keys are not collocated the same way: " + sample);
+
+            int affKeyLen = ((BinaryObjectImpl)ignite.binary().toBinary(sample.key())).length();
+            int compactKeyLen = ((BinaryObjectImpl)ignite.binary().toBinary(sample.compactKey())).length();
+
+            val sw = new StopWatch();
+
+            sw.start("put AffinityKey<Long>");
+            for (Person p : list)
+                affCache.put(p.key(), p);
+            sw.stop();
+
+            sw.start("put PersonKey");
+            for (Person p : list)
+                compactCache.put(p.compactKey(), p);
+            sw.stop();
+
+            int[] order = new int[persons];
+
+            for (int i = 0; i < persons; i++)
+                order[i] = r.nextInt(persons);
+
+            sw.start("get AffinityKey<Long>");
+            for (int i : order) {
+                Person p = list.get(i);
+
+                affCache.get(new AffinityKey<>(p.id, p.orgId));
+            }
+            sw.stop();
+
+            sw.start("get PersonKey");
+            for (int i : order) {
+                Person p = list.get(i);
+
+                compactCache.get(new PersonKey(p.id, p.orgId));
+            }
+            sw.stop();
+
+            Map<Long, Person> boxed = new HashMap<>();
+
+            sw.start("local build HashMap<Long, Person>");
+            for (Person p : list)
+                boxed.put(p.id, p);
+            sw.stop();
+
+            LongHashMap<Person> primitive = new LongHashMap<>();
+
+            sw.start("local build LongHashMap<Person>");
+            for (Person p : list)
+                primitive.put(p.id, p);
+            sw.stop();
+
+            long hits = 0;
+
+            sw.start("local probe HashMap<Long, Person>");
+            for (int i : order)
+                hits += boxed.get((long)i + 1) != null ? 1 : 0;
+            sw.stop();
+
+            sw.start("local probe LongHashMap<Person>");
+            for (int i : order)
+                hits += primitive.get((long)i + 1) != null ? 1 : 0;
+            sw.stop();
+
+            long[] affSize = allocated(ignite, AFFINITY_KEY_CACHE);
+            long[] compactSize = allocated(ignite, COMPACT_KEY_CACHE);
+
+            System.out.println();
+            System.out.println(">>> Key bytes: AffinityKey<Long>=" + affKeyLen + ", PersonKey=" + compactKeyLen);
+            System.out.println(">>> Allocated off-heap bytes per entry, data: AffinityKey<Long>=" +
+                affSize[0] / persons + ", PersonKey=" + compactSize[0] / persons);
+            System.out.println(">>> Allocated off-heap bytes per entry, SQL indexes: AffinityKey<Long>=" +
+                affSize[1] / persons + ", PersonKey=" + compactSize[1] / persons);
+            System.out.println(">>> Local probe hits: " + hits);
+            System.out.println(sw.prettyPrint());
+        }
+    }
+
+    /**
+     * @param ignite Ignite.
+     * @param region Region name.
+     * @return Bytes allocated in region for data and for index pages. Data includes free lists and
+     * other metadata pages; the text index is kept outside of data regions and is not counted.
+     */
+    private static long[] allocated(Ignite ignite, String region) {
+        MetricRegistry mreg = ((IgniteEx)ignite).context().metric()
+            .registry(MetricUtils.metricName(DataRegionMetricsImpl.DATAREGION_METRICS_PREFIX, region));
+
+        long pageSize = ignite.configuration().getDataStorageConfiguration().getPageSize();
+        long total = mreg.<LongMetric>findMetric("TotalAllocatedSize").value();
+        long idx = mreg.<LongMetric>findMetric("InMemoryIndexPages").value() * pageSize;
+
+        return new long[] {total - idx, idx};
+    }
+
+    /**
+     * @param name Region name.
+     * @return Region configuration with metrics enabled.
+     */
+    private static DataRegionConfiguration region(String name) {
+        return new DataRegionConfiguration()
+            .setName(name)
+            .setMaxSize(ClusterHarness.DEFAULT_REGION_SIZE)
+            .setMetricsEnabled(true);
+    }
+}
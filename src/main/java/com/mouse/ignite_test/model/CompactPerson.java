@@ -0,0 +1,285 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.model;
+
+import java.util.Set;
+
+import com.mouse.ignite_test.compress.StringDictionary;
+import org.apache.ignite.binary.BinaryObjectException;
+import org.apache.ignite.binary.BinaryReader;
+import org.apache.ignite.binary.BinaryWriter;
+import org.apache.ignite.binary.Binarylizable;
+import org.apache.ignite.cache.affinity.AffinityKey;
+
+/**
+ * Person with dictionary encoded string fields.
+ * <p>
+ * Each string field listed in {@link Field} is stored either as is, under its own name, or encoded
+ * by {@link StringDictionary} into a {@code long} under the {@link Field#codeField()} name. Getters
+ * decode encoded fields on access with {@link StringDictionary#local()}, so reading a person that
+ * is never asked for its strings costs no decoding, and filters can compare encoded values in
+ * binary form. The fields to encode are chosen per person when it is created, see
+ * {@code PersonCompressor}; a value the dictionary refuses to encode is stored as is.
+ */
+public class CompactPerson implements Binarylizable {
+    /**
+     * String fields that can be encoded.
+     */
+    public enum Field {
+        /** First name. */
+        FIRST_NAME("firstName"),
+
+        /** Last name. */
+        LAST_NAME("lastName"),
+
+        /** Resume. */
+        RESUME("resume");
+
+        /** Name of the field holding string as is. */
+        private final String name;
+
+        /**
+         * @param name Name of the field holding string as is.
+         */
+        Field(String name) {
+            this.name = name;
+        }
+
+        /**
+         * @return Name of the binary field holding string as is.
+         */
+        public String rawField() {
+            return name;
+        }
+
+        /**
+         * @return Name of the binary field holding encoded string.
+         */
+        public String codeField() {
+            return name + "Code";
+        }
+
+        /**
+         * @param p Person.
+         * @return Field value.
+         */
+        public String get(Person p) {
+            switch (this) {
+                case FIRST_NAME:
+                    return p.firstName;
+
+                case LAST_NAME:
+                    return p.lastName;
+
+                default:
+                    return p.resume;
+            }
+        }
+    }
+
+    /** Person ID. */
+    private long id;
+
+    /** Organization ID. */
+    private long orgId;
+
+    /** Salary. */
+    private double salary;
+
+    /** First name or {@code null} if encoded. */
+    private String firstName;
+
+    /** Encoded first name. */
+    private long firstNameCode;
+
+    /** Last name or {@code null} if encoded. */
+    private String lastName;
+
+    /** Encoded last name. */
+    private long lastNameCode;
+
+    /** Resume or {@code null} if encoded. */
+    private String resume;
+
+    /** Encoded resume. */
+    private long resumeCode;
+
+    /** Cache key. */
+    private transient AffinityKey<Long> key;
+
+    /**
+     * Required for binary deserialization.
+     */
+    public CompactPerson() {
+        // No-op.
+    }
+
+    /**
+     * @param p Person.
+     * @param dict Dictionary.
+     * @param encoded Fields to encode.
+     * @throws IllegalStateException If person or organization ID is not set.
+     */
+    public CompactPerson(Person p, StringDictionary dict, Set<Field> encoded) {
+        if (p.id == null || p.orgId == null)
+            throw new IllegalStateException("Compact person requires person and organization IDs: " + p);
+
+        id = p.id;
+        orgId = p.orgId;
+        salary = p.salary;
+
+        long code = encoded.contains(Field.FIRST_NAME) ? dict.encode(p.firstName) : -1;
+
+        if (code >= 0)
+            firstNameCode = code;
+        else
+            firstName = p.firstName;
+
+        code = encoded.contains(Field.LAST_NAME) ? dict.encode(p.lastName) : -1;
+
+        if (code >= 0)
+            lastNameCode = code;
+        else
+            lastName = p.lastName;
+
+        code = encoded.contains(Field.RESUME) ? dict.encode(p.resume) : -1;
+
+        if (code >= 0)
+            resumeCode = code;
+        else
+            resume = p.resume;
+    }
+
+    /**
+     * @return Person ID.
+     */
+    public long id() {
+        return id;
+    }
+
+    /**
+     * @return Organization ID.
+     */
+    public long orgId() {
+        return orgId;
+    }
+
+    /**
+     * @return Salary.
+     */
+    public double salary() {
+        return salary;
+    }
+
+    /**
+     * @return First name.
+     */
+    public String firstName() {
+        return firstName != null ? firstName : decode(firstNameCode);
+    }
+
+    /**
+     * @return Last name.
+     */
+    public String lastName() {
+        return lastName != null ? lastName : decode(lastNameCode);
+    }
+
+    /**
+     * @return Resume.
+     */
+    public String resume() {
+        return resume != null ? resume : decode(resumeCode);
+    }
+
+    /**
+     * @return Cache key, same as {@link Person#key()}.
+     */
+    public AffinityKey<Long> key() {
+        if (key == null)
+            key = new AffinityKey<>(id, orgId);
+
+        return key;
+    }
+
+    /**
+     * @return Decoded person.
+     */
+    public Person toPerson() {
+        return new Person(id, orgId, firstName(), lastName(), salary, resume());
+    }
+
+    /**
+     * @param code Encoded string.
+     * @return Decoded string.
+     */
+    private static String decode(long code) {
+        return code == 0 ? null : StringDictionary.local().decode(code);
+    }
+
+    /** {@inheritDoc} */
+    @Override public void writeBinary(BinaryWriter writer) throws BinaryObjectException {
+        writer.writeLong("id", id);
+        writer.writeLong("orgId", orgId);
+        writer.writeDouble("salary", salary);
+
+        write(writer, Field.FIRST_NAME, firstName, firstNameCode);
+        write(writer, Field.LAST_NAME, lastName, lastNameCode);
+        write(writer, Field.RESUME, resume, resumeCode);
+    }
+
+    /**
+     * Writes only one of the raw and encoded fields.
+     *
+     * @param writer Writer.
+     * @param field Field.
+     * @param raw String or {@code null}.
+     * @param code Encoded string.
+     */
+    private static void write(BinaryWriter writer, Field field, String raw, long code) {
+        if (raw != null)
+            writer.writeString(field.rawField(), raw);
+        else
+            writer.writeLong(field.codeField(), code);
+    }
+
+    /** {@inheritDoc} */
+    @Override public void readBinary(BinaryReader reader) throws BinaryObjectException {
+        id = reader.readLong("id");
+        orgId = reader.readLong("orgId");
+        salary = reader.readDouble("salary");
+
+        // Absent fields read as null and 0.
+        firstName = reader.readString(Field.FIRST_NAME.rawField());
+        firstNameCode = reader.readLong(Field.FIRST_NAME.codeField());
+        lastName = reader.readString(Field.LAST_NAME.rawField());
+        lastNameCode = reader.readLong(Field.LAST_NAME.codeField());
+        resume = reader.readString(Field.RESUME.rawField());
+        resumeCode = reader.readLong(Field.RESUME.codeField());
+    }
+
+    /** {@inheritDoc} */
+    @Override public String toString() {
+        return "CompactPerson [id=" + id +
+            ", orgId=" + orgId +
+            ", lastName=" + lastName() +
+            ", firstName=" + firstName() +
+            ", salary=" + salary +
+            ", resume=" + resume() + ']';
+    }
+}
@@ -87,6 +87,21 @@ public class Organization {
         this.lastUpdated = lastUpdated;
     }
 
+    /**
+     * @param id Organization ID.
+     * @param name Name.
+     * @param addr Address.
+     * @param type Type.
+     * @param lastUpdated Last update time.
+     */
+    public Organization(long id, String name, Address addr, OrganizationType type, Timestamp lastUpdated) {
+        this.id = id;
+        this.name = name;
+        this.addr = addr;
+        this.type = type;
+        this.lastUpdated = lastUpdated;
+    }
+
     /**
      * @return Organization ID.
      */
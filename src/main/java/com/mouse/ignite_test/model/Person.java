@@ -60,6 +60,9 @@ public class Person implements Serializable {
     /** Custom cache key to guarantee that person is always colocated with its organization. */
     private transient AffinityKey<Long> key;
 
+    /** Compact variant of {@link #key}. */
+    private transient PersonKey compactKey;
+
     /**
      * Default constructor.
      */
@@ -134,6 +137,24 @@ public class Person implements Serializable {
         return key;
     }
 
+    /**
+     * Gets compact cache key with the same collocation guarantee as {@link #key()}. Unlike {@link #key()},
+     * it requires both IDs, since {@link PersonKey} has no way to express a missing organization.
+     *
+     * @return Compact key with primitive person and organization IDs.
+     * @throws IllegalStateException If person or organization ID is not set.
+     */
+    public PersonKey compactKey() {
+        if (compactKey == null) {
+            if (id == null || orgId == null)
+                throw new IllegalStateException("Compact key requires person and organization IDs: " + this);
+
+            compactKey = new PersonKey(id, orgId);
+        }
+
+        return compactKey;
+    }
+
     /**
      * {@inheritDoc}
      */
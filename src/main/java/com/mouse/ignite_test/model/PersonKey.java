@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.model;
+
+import org.apache.ignite.binary.BinaryObjectException;
+import org.apache.ignite.binary.BinaryReader;
+import org.apache.ignite.binary.BinaryWriter;
+import org.apache.ignite.binary.Binarylizable;
+import org.apache.ignite.cache.affinity.AffinityKey;
+import org.apache.ignite.cache.affinity.AffinityKeyMapped;
+
+/**
+ * Compact key for person object.
+ * <p>
+ * Same idea as {@link EmployeeKey}: two primitive {@code long}s instead of the two boxed
+ * {@code Long}s of {@link AffinityKey}, with the organization ID marked by {@link AffinityKeyMapped}
+ * so persons stay collocated with their organizations. The binary layout is fixed by
+ * {@link Binarylizable}: {@code id} followed by {@code orgId}.
+ */
+public final class PersonKey implements Binarylizable {
+    /** Person ID. */
+    private long id;
+
+    /** Organization ID. */
+    @AffinityKeyMapped
+    private long orgId;
+
+    /**
+     * Required for binary deserialization.
+     */
+    public PersonKey() {
+        // No-op.
+    }
+
+    /**
+     * @param id Person ID.
+     * @param orgId Organization ID.
+     */
+    public PersonKey(long id, long orgId) {
+        this.id = id;
+        this.orgId = orgId;
+    }
+
+    /**
+     * @return Person ID.
+     */
+    public long id() {
+        return id;
+    }
+
+    /**
+     * @return Organization ID.
+     */
+    public long orgId() {
+        return orgId;
+    }
+
+    /** {@inheritDoc} */
+    @Override public void writeBinary(BinaryWriter writer) throws BinaryObjectException {
+        writer.writeLong("id", id);
+        writer.writeLong("orgId", orgId);
+    }
+
+    /** {@inheritDoc} */
+    @Override public void readBinary(BinaryReader reader) throws BinaryObjectException {
+        id = reader.readLong("id");
+        orgId = reader.readLong("orgId");
+    }
+
+    /** {@inheritDoc} */
+    @Override public boolean equals(Object o) {
+        if (this == o)
+            return true;
+
+        // Class is final, person ID is unique so it is compared first.
+        if (!(o instanceof PersonKey))
+            return false;
+
+        PersonKey key = (PersonKey)o;
+
+        return id == key.id && orgId == key.orgId;
+    }
+
+    /** {@inheritDoc} */
+    @Override public int hashCode() {
+        int res = Long.hashCode(id);
+
+        res = 31 * res + Long.hashCode(orgId);
+
+        return res;
+    }
+
+    /** {@inheritDoc} */
+    @Override public String toString() {
+        return "PersonKey [id=" + id +
+            ", orgId=" + orgId + ']';
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.projection;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ordered list of value fields to project, each with the column type it is read into.
+ * <p>
+ * {@link Type#LONG} columns accept any integer field, {@link Type#DOUBLE} columns any numeric field
+ * and {@link Type#STRING} columns string fields. A missing or {@code null} field is read as
+ * {@code 0}, {@code NaN} and {@code -1} dictionary code respectively.
+ */
+public class Projection implements Serializable {
+    /** */
+    private static final long serialVersionUID = 0L;
+
+    /**
+     * Column type.
+     */
+    public enum Type {
+        /** {@code long[]} column. */
+        LONG,
+
+        /** {@code double[]} column. */
+        DOUBLE,
+
+        /** Dictionary encoded string column: {@code int[]} codes and {@code String[]} dictionary. */
+        STRING
+    }
+
+    /** Field names. */
+    private final List<String> names = new ArrayList<>();
+
+    /** Column types. */
+    private final List<Type> types = new ArrayList<>();
+
+    /**
+     * @param name Field name.
+     * @return {@code this} for chaining.
+     */
+    public Projection longField(String name) {
+        return add(name, Type.LONG);
+    }
+
+    /**
+     * @param name Field name.
+     * @return {@code this} for chaining.
+     */
+    public Projection doubleField(String name) {
+        return add(name, Type.DOUBLE);
+    }
+
+    /**
+     * @param name Field name.
+     * @return {@code this} for chaining.
+     */
+    public Projection stringField(String name) {
+        return add(name, Type.STRING);
+    }
+
+    /**
+     * @return Number of columns.
+     */
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * @param col Column.
+     * @return Field name.
+     */
+    public String name(int col) {
+        return names.get(col);
+    }
+
+    /**
+     * @param col Column.
+     * @return Column type.
+     */
+    public Type type(int col) {
+        return types.get(col);
+    }
+
+    /**
+     * @param name Field name.
+     * @return Column or {@code -1} if field is not projected.
+     */
+    public int column(String name) {
+        return names.indexOf(name);
+    }
+
+    /**
+     * @param name Field name.
+     * @param type Column type.
+     * @return {@code this} for chaining.
+     */
+    private Projection add(String name, Type type) {
+        if (names.contains(name))
+            throw new IllegalArgumentException("Field is already projected: " + name);
+
+        names.add(name);
+        types.add(type);
+
+        return this;
+    }
+
+    /** {@inheritDoc} */
+    @Override public String toString() {
+        return "Projection " + names + ' ' + types;
+    }
+}
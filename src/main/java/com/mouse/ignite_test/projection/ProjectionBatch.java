@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.projection;
+
+import java.io.Serializable;
+
+/**
+ * Projected rows in columnar form: one primitive array per column, all of {@link #size()} length.
+ * String columns are dictionary encoded, each distinct value is shipped once per batch.
+ */
+public class ProjectionBatch implements Serializable {
+    /** */
+    private static final long serialVersionUID = 0L;
+
+    /** Number of rows. */
+    private final int size;
+
+    /** Columns: {@code long[]}, {@code double[]} or {@code int[]} codes. */
+    private final Object[] cols;
+
+    /** Dictionaries of string columns, {@code null} for other columns. */
+    private final String[][] dicts;
+
+    /**
+     * @param size Number of rows.
+     * @param cols Columns.
+     * @param dicts Dictionaries.
+     */
+    ProjectionBatch(int size, Object[] cols, String[][] dicts) {
+        this.size = size;
+        this.cols = cols;
+        this.dicts = dicts;
+    }
+
+    /**
+     * @return Number of rows.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param col {@link Projection.Type#LONG} column.
+     * @return Column values.
+     */
+    public long[] longs(int col) {
+        return (long[])cols[col];
+    }
+
+    /**
+     * @param col {@link Projection.Type#DOUBLE} column.
+     * @return Column values.
+     */
+    public double[] doubles(int col) {
+        return (double[])cols[col];
+    }
+
+    /**
+     * @param col {@link Projection.Type#STRING} column.
+     * @return Dictionary codes, {@code -1} for {@code null}.
+     */
+    public int[] codes(int col) {
+        return (int[])cols[col];
+    }
+
+    /**
+     * @param col {@link Projection.Type#STRING} column.
+     * @return Dictionary.
+     */
+    public String[] dictionary(int col) {
+        return dicts[col];
+    }
+
+    /**
+     * @param col {@link Projection.Type#STRING} column.
+     * @param row Row.
+     * @return Value.
+     */
+    public String string(int col, int row) {
+        int code = codes(col)[row];
+
+        return code < 0 ? null : dicts[col][code];
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.projection;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+import javax.cache.Cache;
+
+import com.mouse.ignite_test.CacheQueryExample;
+import com.mouse.ignite_test.cluster.ClusterHarness;
+import com.mouse.ignite_test.model.Person;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.Ignition;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.cache.affinity.AffinityKey;
+import org.apache.ignite.cache.query.IndexQuery;
+import org.apache.ignite.cache.query.Query;
+import org.apache.ignite.cache.query.QueryCursor;
+import org.apache.ignite.cache.query.ScanQuery;
+import org.apache.ignite.configuration.IgniteConfiguration;
+import org.apache.ignite.spi.communication.tcp.TcpCommunicationSpi;
+
+import static org.apache.ignite.cache.query.IndexQueryCriteriaBuilder.gte;
+
+/**
+ * Compares {@link ProjectionQuery} with queries that return full entries.
+ * <p>
+ * Server nodes and a client node run in this JVM; the client issues every query, so all rows
+ * cross the loopback network. For an index query on {@code salary} and a full scan, reports bytes
+ * received by the client, bytes allocated by the calling thread and by all threads, and latency of:
+ * <ul>
+ *     <li>full {@code Person} entries,</li>
+ *     <li>full {@code BinaryObject} entries with fields read on the client,</li>
+ *     <li>projection of {@code id} and {@code salary},</li>
+ *     <li>projection of {@code id}, {@code salary} and {@code firstName}.</li>
+ * </ul>
+ * Arguments (all optional, positional): persons (default {@code 200000}), server nodes (default {@code 2}),
+ * repetitions (default {@code 10}).
+ */
+public class ProjectionBenchmark {
+    /** Min salary of the index query, selects about 10% of persons. */
+    private static final double MIN_SALARY = ClusterHarness.MAX_SALARY * 0.9;
+
+    /** Thread MX bean. */
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+
+    /**
+     * Executes benchmark.
+     *
+     * @param args Command line arguments, see class description.
+     */
+    public static void main(String[] args) {
+        int persons = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int servers = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        int reps = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        List<Ignite> nodes = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < servers; i++)
+                nodes.add(ClusterHarness.startNode("projection-server-" + i));
+
+            IgniteConfiguration clientCfg = ClusterHarness.configuration("projection-client").setClientMode(true);
+
+            Ignite client = Ignition.start(clientCfg);
+
+            nodes.add(client);
+
+            client.getOrCreateCache(ClusterHarness.personCacheConfiguration());
+
+            ClusterHarness.loadPersons(client, persons, 100, 42);
+
+            TcpCommunicationSpi comm = (TcpCommunicationSpi)clientCfg.getCommunicationSpi();
+
+            IgniteCache<AffinityKey<Long>, Person> cache = client.cache(CacheQueryExample.PERSON_CACHE);
+
+            System.out.println();
+
+            for (boolean idx : new boolean[] {true, false}) {
+                String name = idx ? "IndexQuery salary >= " + MIN_SALARY : "ScanQuery, all persons";
+
+                Supplier<Query<Cache.Entry<Object, BinaryObject>>> binQry = () -> idx ?
+                    new IndexQuery<Object, BinaryObject>(Person.class.getName()).setCriteria(gte("salary", MIN_SALARY)) :
+                    new ScanQuery<>();
+
+                Supplier<Query<Cache.Entry<AffinityKey<Long>, Person>>> objQry = () -> idx ?
+                    new IndexQuery<AffinityKey<Long>, Person>(Person.class).setCriteria(gte("salary", MIN_SALARY)) :
+                    new ScanQuery<>();
+
+                Projection idSalary = new Projection().longField("id").doubleField("salary");
+                Projection idSalaryName = new Projection().longField("id").doubleField("salary").stringField("firstName");
+
+                System.out.println(">>> " + name);
+
+                List<double[]> sums = new ArrayList<>();
+
+                sums.add(run("full Person entries", reps, comm, () -> {
+                    double[] s = new double[3];
+
+                    try (QueryCursor<Cache.Entry<AffinityKey<Long>, Person>> cur = cache.query(objQry.get())) {
+                        for (Cache.Entry<AffinityKey<Long>, Person> e : cur) {
+                            s[0]++;
+                            s[1] += e.getValue().id;
+                            s[2] += e.getValue().salary;
+                        }
+                    }
+
+                    return s;
+                }));
+
+                sums.add(run("full BinaryObject entries", reps, comm, () -> {
+                    double[] s = new double[3];
+
+                    try (QueryCursor<Cache.Entry<Object, BinaryObject>> cur =
+                             cache.withKeepBinary().query(binQry.get())) {
+                        for (Cache.Entry<Object, BinaryObject> e : cur) {
+                            s[0]++;
+                            s[1] += e.getValue().<Long>field("id");
+                            s[2] += e.getValue().<Double>field("salary");
+                        }
+                    }
+
+                    return s;
+                }));
+
+                sums.add(run("projection id, salary", reps, comm, () ->
+                    sum(ProjectionQuery.execute(client, CacheQueryExample.PERSON_CACHE, binQry.get(), idSalary))));
+
+                sums.add(run("projection id, salary, firstName", reps, comm, () ->
+                    sum(ProjectionQuery.execute(client, CacheQueryExample.PERSON_CACHE, binQry.get(), idSalaryName))));
+
+                for (double[] s : sums) {
+                    if (!Arrays.equals(s, sums.get(0)))
+                        throw new IllegalStateException("Results differ: " + Arrays.toString(s) + " != " +
+                            Arrays.toString(sums.get(0)));
+                }
+
+                System.out.println(">>>   rows: " + (long)sums.get(0)[0]);
+            }
+        }
+        finally {
+            for (int i = nodes.size() - 1; i >= 0; i--)
+                nodes.get(i).close();
+        }
+    }
+
+    /**
+     * Runs query once to warm up and then {@code reps} times, printing averages.
+     *
+     * @param name Name.
+     * @param reps Repetitions.
+     * @param comm Client communication SPI.
+     * @param qry Query returning row count, sum of IDs and sum of salaries.
+     * @return Query result.
+     */
+    private static double[] run(String name, int reps, TcpCommunicationSpi comm, Supplier<double[]> qry) {
+        double[] res = qry.get();
+
+        long[] lat = new long[reps];
+
+        long bytes = comm.getReceivedBytesCount();
+        long callerAlloc = THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+        long totalAlloc = totalAllocated();
+
+        for (int i = 0; i < reps; i++) {
+            long start = System.nanoTime();
+
+            res = qry.get();
+
+            lat[i] = System.nanoTime() - start;
+        }
+
+        bytes = comm.getReceivedBytesCount() - bytes;
+        callerAlloc = THREADS.getThreadAllocatedBytes(Thread.currentThread().getId()) - callerAlloc;
+        totalAlloc = totalAllocated() - totalAlloc;
+
+        Arrays.sort(lat);
+
+        System.out.printf(">>>   %-34s received %,12d B, allocated %,13d B caller / %,13d B all threads, " +
+                "latency p50 %,7.1f ms, max %,7.1f ms%n", name, bytes / reps, callerAlloc / reps, totalAlloc / reps,
+            lat[reps / 2] / 1e6, lat[reps - 1] / 1e6);
+
+        return res;
+    }
+
+    /**
+     * @param batches Cursor over batches with {@code id} and {@code salary} in the first two columns, closed.
+     * @return Row count, sum of IDs and sum of salaries.
+     */
+    private static double[] sum(QueryCursor<ProjectionBatch> batches) {
+        double[] s = new double[3];
+
+        try (QueryCursor<ProjectionBatch> cur = batches) {
+            for (ProjectionBatch b : cur) {
+                long[] ids = b.longs(0);
+                double[] salaries = b.doubles(1);
+
+                for (int i = 0; i < b.size(); i++) {
+                    s[0]++;
+                    s[1] += ids[i];
+                    s[2] += salaries[i];
+                }
+            }
+        }
+
+        return s;
+    }
+
+    /**
+     * @return Bytes allocated by all live threads.
+     */
+    private static long totalAllocated() {
+        long sum = 0;
+
+        for (long alloc : THREADS.getThreadAllocatedBytes(THREADS.getAllThreadIds()))
+            sum += Math.max(alloc, 0);
+
+        return sum;
+    }
+}
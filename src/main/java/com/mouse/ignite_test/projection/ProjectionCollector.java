@@ -0,0 +1,401 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.projection;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.apache.ignite.IgniteException;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.binary.BinaryType;
+import org.apache.ignite.internal.binary.BinaryFieldEx;
+import org.apache.ignite.internal.binary.BinaryObjectEx;
+import org.apache.ignite.internal.binary.GridBinaryMarshaller;
+
+/**
+ * Reads projected fields of binary objects into growing column arrays.
+ * <p>
+ * A field is copied as raw bytes, type flag followed by value, into a reusable little-endian
+ * buffer and decoded from there, so numbers are never boxed. Strings are looked up in the
+ * column dictionary by their UTF-8 bytes and turned into {@link String} only once per distinct value.
+ * Not thread safe.
+ */
+class ProjectionCollector {
+    /** Initial column capacity. */
+    private static final int INIT_CAP = 1024;
+
+    /** Projection. */
+    private final Projection proj;
+
+    /** Field accessors for {@link #typeId}. */
+    private final BinaryFieldEx[] fields;
+
+    /** Type ID fields were resolved for. */
+    private int typeId;
+
+    /** Whether fields were resolved. */
+    private boolean resolved;
+
+    /** Field bytes. */
+    private ByteBuffer buf = ByteBuffer.allocate(256).order(ByteOrder.LITTLE_ENDIAN);
+
+    /** Columns. */
+    private final Object[] cols;
+
+    /** Dictionaries of string columns. */
+    private final ByteDictionary[] dicts;
+
+    /** Number of rows. */
+    private int size;
+
+    /**
+     * @param proj Projection.
+     */
+    ProjectionCollector(Projection proj) {
+        this.proj = proj;
+
+        fields = new BinaryFieldEx[proj.size()];
+        cols = new Object[proj.size()];
+        dicts = new ByteDictionary[proj.size()];
+
+        for (int c = 0; c < proj.size(); c++) {
+            switch (proj.type(c)) {
+                case LONG:
+                    cols[c] = new long[INIT_CAP];
+
+                    break;
+
+                case DOUBLE:
+                    cols[c] = new double[INIT_CAP];
+
+                    break;
+
+                default:
+                    cols[c] = new int[INIT_CAP];
+                    dicts[c] = new ByteDictionary();
+            }
+        }
+    }
+
+    /**
+     * @param obj Binary object.
+     */
+    void add(BinaryObject obj) {
+        int objTypeId = ((BinaryObjectEx)obj).typeId();
+
+        if (!resolved || objTypeId != typeId) {
+            BinaryType type = obj.type();
+
+            // Fields the type never had stay null and are read as nulls without a lookup.
+            for (int c = 0; c < fields.length; c++)
+                fields[c] = type.fieldNames().contains(proj.name(c)) ? (BinaryFieldEx)type.field(proj.name(c)) : null;
+
+            typeId = objTypeId;
+            resolved = true;
+        }
+
+        if (size == capacity(cols[0]))
+            grow();
+
+        for (int c = 0; c < fields.length; c++) {
+            byte flag = read(fields[c], obj) ? buf.get(0) : GridBinaryMarshaller.NULL;
+
+            switch (proj.type(c)) {
+                case LONG:
+                    ((long[])cols[c])[size] = flag == GridBinaryMarshaller.NULL ? 0 : readLong(c, flag);
+
+                    break;
+
+                case DOUBLE:
+                    ((double[])cols[c])[size] = flag == GridBinaryMarshaller.NULL ? Double.NaN : readDouble(c, flag);
+
+                    break;
+
+                default:
+                    if (flag != GridBinaryMarshaller.NULL && flag != GridBinaryMarshaller.STRING)
+                        throw unsupported(c, flag);
+
+                    ((int[])cols[c])[size] = flag == GridBinaryMarshaller.NULL ? -1 :
+                        dicts[c].code(buf.array(), 5, buf.getInt(1));
+            }
+        }
+
+        size++;
+    }
+
+    /**
+     * @return Number of rows.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return Collected rows, column arrays trimmed to size.
+     */
+    ProjectionBatch batch() {
+        Object[] res = new Object[cols.length];
+        String[][] resDicts = new String[cols.length][];
+
+        for (int c = 0; c < cols.length; c++) {
+            switch (proj.type(c)) {
+                case LONG:
+                    res[c] = Arrays.copyOf((long[])cols[c], size);
+
+                    break;
+
+                case DOUBLE:
+                    res[c] = Arrays.copyOf((double[])cols[c], size);
+
+                    break;
+
+                default:
+                    res[c] = Arrays.copyOf((int[])cols[c], size);
+                    resDicts[c] = dicts[c].strings();
+            }
+        }
+
+        return new ProjectionBatch(size, res, resDicts);
+    }
+
+    /**
+     * Copies field bytes into {@link #buf}, growing it if needed.
+     *
+     * @param field Field or {@code null} if type has no such field.
+     * @param obj Object.
+     * @return {@code False} if object has no such field.
+     */
+    private boolean read(BinaryFieldEx field, BinaryObject obj) {
+        // Objects of one type may have different schemas, a field of the type can be absent in the object.
+        if (field == null || !field.exists(obj))
+            return false;
+
+        buf.clear();
+
+        while (!field.writeField(obj, buf))
+            buf = ByteBuffer.allocate(buf.capacity() * 2).order(ByteOrder.LITTLE_ENDIAN);
+
+        return true;
+    }
+
+    /**
+     * @param c Column.
+     * @param flag Type flag.
+     * @return Value in {@link #buf}.
+     */
+    private long readLong(int c, byte flag) {
+        switch (flag) {
+            case GridBinaryMarshaller.LONG:
+                return buf.getLong(1);
+
+            case GridBinaryMarshaller.INT:
+                return buf.getInt(1);
+
+            case GridBinaryMarshaller.SHORT:
+                return buf.getShort(1);
+
+            case GridBinaryMarshaller.BYTE:
+                return buf.get(1);
+
+            default:
+                throw unsupported(c, flag);
+        }
+    }
+
+    /**
+     * @param c Column.
+     * @param flag Type flag.
+     * @return Value in {@link #buf}.
+     */
+    private double readDouble(int c, byte flag) {
+        switch (flag) {
+            case GridBinaryMarshaller.DOUBLE:
+                return buf.getDouble(1);
+
+            case GridBinaryMarshaller.FLOAT:
+                return buf.getFloat(1);
+
+            default:
+                return readLong(c, flag);
+        }
+    }
+
+    /**
+     * @param c Column.
+     * @param flag Type flag.
+     * @return Exception.
+     */
+    private IgniteException unsupported(int c, byte flag) {
+        return new IgniteException("Field " + proj.name(c) + " of type " + flag + " can't be read into " +
+            proj.type(c) + " column.");
+    }
+
+    /**
+     * @param col Column.
+     * @return Column capacity.
+     */
+    private static int capacity(Object col) {
+        if (col instanceof long[])
+            return ((long[])col).length;
+
+        return col instanceof double[] ? ((double[])col).length : ((int[])col).length;
+    }
+
+    /**
+     * Doubles capacity of all columns.
+     */
+    private void grow() {
+        int cap = size * 2;
+
+        for (int c = 0; c < cols.length; c++) {
+            Object col = cols[c];
+
+            if (col instanceof long[])
+                cols[c] = Arrays.copyOf((long[])col, cap);
+            else if (col instanceof double[])
+                cols[c] = Arrays.copyOf((double[])col, cap);
+            else
+                cols[c] = Arrays.copyOf((int[])col, cap);
+        }
+    }
+
+    /**
+     * Dictionary of UTF-8 strings keyed by their bytes, open addressing with linear probing.
+     */
+    private static class ByteDictionary {
+        /** Bytes of all values. */
+        private byte[] data = new byte[4096];
+
+        /** Used bytes in {@link #data}. */
+        private int dataLen;
+
+        /** Value offsets in {@link #data}, by code. */
+        private int[] offs = new int[64];
+
+        /** Value lengths, by code. */
+        private int[] lens = new int[64];
+
+        /** Number of values. */
+        private int cnt;
+
+        /** Hash table of {@code code + 1}, {@code 0} for empty slot. */
+        private int[] table = new int[128];
+
+        /**
+         * @param arr Array.
+         * @param off Value offset.
+         * @param len Value length.
+         * @return Code of the value.
+         */
+        int code(byte[] arr, int off, int len) {
+            int mask = table.length - 1;
+
+            for (int slot = slot(arr, off, len, mask); ; slot = (slot + 1) & mask) {
+                int code = table[slot] - 1;
+
+                if (code < 0) {
+                    code = append(arr, off, len);
+
+                    table[slot] = code + 1;
+
+                    if (cnt * 2 > table.length)
+                        rehash();
+
+                    return code;
+                }
+
+                if (lens[code] == len && Arrays.equals(data, offs[code], offs[code] + len, arr, off, off + len))
+                    return code;
+            }
+        }
+
+        /**
+         * @return Values by code.
+         */
+        String[] strings() {
+            String[] res = new String[cnt];
+
+            for (int i = 0; i < cnt; i++)
+                res[i] = new String(data, offs[i], lens[i], StandardCharsets.UTF_8);
+
+            return res;
+        }
+
+        /**
+         * @param arr Array.
+         * @param off Value offset.
+         * @param len Value length.
+         * @return Code of appended value.
+         */
+        private int append(byte[] arr, int off, int len) {
+            if (dataLen + len > data.length)
+                data = Arrays.copyOf(data, Math.max(data.length * 2, dataLen + len));
+
+            if (cnt == offs.length) {
+                offs = Arrays.copyOf(offs, cnt * 2);
+                lens = Arrays.copyOf(lens, cnt * 2);
+            }
+
+            System.arraycopy(arr, off, data, dataLen, len);
+
+            offs[cnt] = dataLen;
+            lens[cnt] = len;
+            dataLen += len;
+
+            return cnt++;
+        }
+
+        /**
+         * Doubles hash table.
+         */
+        private void rehash() {
+            table = new int[table.length * 2];
+
+            int mask = table.length - 1;
+
+            for (int code = 0; code < cnt; code++) {
+                int slot = slot(data, offs[code], lens[code], mask);
+
+                while (table[slot] != 0)
+                    slot = (slot + 1) & mask;
+
+                table[slot] = code + 1;
+            }
+        }
+
+        /**
+         * @param arr Array.
+         * @param off Value offset.
+         * @param len Value length.
+         * @param mask Table mask.
+         * @return Home slot of the value.
+         */
+        private static int slot(byte[] arr, int off, int len, int mask) {
+            int hash = 1;
+
+            for (int i = off; i < off + len; i++)
+                hash = 31 * hash + arr[i];
+
+            hash *= 0x9E3779B9;
+
+            return (hash ^ (hash >>> 16)) & mask;
+        }
+    }
+}
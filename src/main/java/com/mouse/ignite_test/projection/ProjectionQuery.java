@@ -0,0 +1,505 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.projection;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.cache.Cache;
+
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.IgniteException;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.cache.query.IndexQuery;
+import org.apache.ignite.cache.query.IndexQueryCriterion;
+import org.apache.ignite.cache.query.Query;
+import org.apache.ignite.cache.query.QueryCursor;
+import org.apache.ignite.cache.query.ScanQuery;
+import org.apache.ignite.cluster.ClusterGroup;
+import org.apache.ignite.lang.IgniteCallable;
+import org.apache.ignite.lang.IgniteUuid;
+import org.apache.ignite.resources.IgniteInstanceResource;
+
+/**
+ * Runs {@link IndexQuery} or {@link ScanQuery} on every data node and returns only projected
+ * fields, as {@link ProjectionBatch}es of at most a given number of rows.
+ * <p>
+ * Each node runs the query locally over its primary partitions in binary form and reads the
+ * projected fields straight from the binary rows, see {@link ProjectionCollector}. Only the
+ * column arrays cross the network, instead of a key and a whole value per row. Results are
+ * consistent only while the topology is stable, same as for other broadcast queries here.
+ * <p>
+ * The first batch of every node is fetched when the query is executed, the following ones as the
+ * returned cursor is iterated, so neither the nodes nor the caller hold more than one batch per
+ * node at a time. Nodes keep the local query open between batches: the cursor must be closed if it
+ * is not iterated to the end, otherwise the nodes close it after {@link #IDLE_TIMEOUT}.
+ */
+public final class ProjectionQuery {
+    /** Default max rows per batch. */
+    public static final int DFLT_BATCH_SIZE = 8192;
+
+    /** Time after which nodes close a local query not fetched from, milliseconds. */
+    public static final long IDLE_TIMEOUT = 5 * 60_000L;
+
+    /** Node local map key of open local queries. */
+    private static final String CURSORS_KEY = ProjectionQuery.class.getName() + ".cursors";
+
+    /**
+     * Utility class.
+     */
+    private ProjectionQuery() {
+        // No-op.
+    }
+
+    /**
+     * @param ignite Ignite.
+     * @param cacheName Cache name.
+     * @param qry {@link IndexQuery} or {@link ScanQuery} over binary values.
+     * @param proj Projection, at least one field.
+     * @return Cursor over non-empty batches of at most {@link #DFLT_BATCH_SIZE} rows.
+     */
+    public static QueryCursor<ProjectionBatch> execute(Ignite ignite, String cacheName,
+        Query<Cache.Entry<Object, BinaryObject>> qry, Projection proj) {
+        return execute(ignite, cacheName, qry, proj, DFLT_BATCH_SIZE);
+    }
+
+    /**
+     * @param ignite Ignite.
+     * @param cacheName Cache name.
+     * @param qry {@link IndexQuery} or {@link ScanQuery} over binary values, not modified.
+     * @param proj Projection, at least one field.
+     * @param batchSize Max rows per batch.
+     * @return Cursor over non-empty batches.
+     */
+    public static QueryCursor<ProjectionBatch> execute(Ignite ignite, String cacheName,
+        Query<Cache.Entry<Object, BinaryObject>> qry, Projection proj, int batchSize) {
+        if (!(qry instanceof IndexQuery) && !(qry instanceof ScanQuery))
+            throw new IllegalArgumentException("Only IndexQuery and ScanQuery can be projected: " + qry);
+
+        if (proj.size() == 0)
+            throw new IllegalArgumentException("Projection is empty.");
+
+        if (batchSize <= 0)
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+
+        ClusterGroup grp = ignite.cluster().forDataNodes(cacheName);
+
+        IgniteUuid id = IgniteUuid.randomUuid();
+
+        Collection<Page> pages;
+
+        try {
+            pages = ignite.compute(grp).broadcast(new OpenJob(id, cacheName, localCopy(qry), proj, batchSize));
+        }
+        catch (IgniteException e) {
+            // Nodes that succeeded keep their local queries open.
+            try {
+                ignite.compute(grp).broadcast(new FetchJob(id, true));
+            }
+            catch (IgniteException e0) {
+                e.addSuppressed(e0);
+            }
+
+            throw e;
+        }
+
+        return new Cursor(ignite, id, pages);
+    }
+
+    /**
+     * Copies query for local execution, so that jobs never change the caller's query, not even
+     * a job running on the caller node, which is not marshalled.
+     *
+     * @param qry Query.
+     * @return Local copy.
+     */
+    @SuppressWarnings("unchecked")
+    private static Query<Cache.Entry<Object, BinaryObject>> localCopy(Query<Cache.Entry<Object, BinaryObject>> qry) {
+        Query<Cache.Entry<Object, BinaryObject>> res;
+
+        if (qry instanceof IndexQuery) {
+            IndexQuery<Object, BinaryObject> src = (IndexQuery<Object, BinaryObject>)qry;
+            IndexQuery<Object, BinaryObject> cp = new IndexQuery<>(src.getValueType(), src.getIndexName());
+
+            List<IndexQueryCriterion> criteria = src.getCriteria();
+
+            if (criteria != null && !criteria.isEmpty())
+                cp.setCriteria(criteria);
+
+            if (src.getFilter() != null)
+                cp.setFilter(src.getFilter());
+
+            res = cp;
+        }
+        else {
+            ScanQuery<Object, BinaryObject> src = (ScanQuery<Object, BinaryObject>)qry;
+
+            res = new ScanQuery<>(src.getPartition(), src.getFilter());
+        }
+
+        return res.setPageSize(qry.getPageSize()).setLocal(true);
+    }
+
+    /**
+     * @param ignite Local node.
+     * @return Open local queries of the node.
+     */
+    private static ConcurrentMap<IgniteUuid, NodeCursor> cursors(Ignite ignite) {
+        ConcurrentMap<String, ConcurrentMap<IgniteUuid, NodeCursor>> map = ignite.cluster().nodeLocalMap();
+
+        return map.computeIfAbsent(CURSORS_KEY, k -> new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Batch of one node.
+     */
+    private static class Page implements Serializable {
+        /** */
+        private static final long serialVersionUID = 0L;
+
+        /** Node ID. */
+        private final UUID nodeId;
+
+        /** Batch. */
+        private final ProjectionBatch batch;
+
+        /** Whether this is the last batch of the node. */
+        private final boolean last;
+
+        /**
+         * @param nodeId Node ID.
+         * @param batch Batch.
+         * @param last Whether this is the last batch of the node.
+         */
+        Page(UUID nodeId, ProjectionBatch batch, boolean last) {
+            this.nodeId = nodeId;
+            this.batch = batch;
+            this.last = last;
+        }
+    }
+
+    /**
+     * Local query open on a node between batches.
+     */
+    private static class NodeCursor {
+        /** Query cursor. */
+        private final QueryCursor<Cache.Entry<Object, BinaryObject>> cur;
+
+        /** Query iterator. */
+        private final Iterator<Cache.Entry<Object, BinaryObject>> it;
+
+        /** Projection. */
+        private final Projection proj;
+
+        /** Max rows per batch. */
+        private final int batchSize;
+
+        /** Time of the last fetch. */
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        /**
+         * @param cur Query cursor.
+         * @param proj Projection.
+         * @param batchSize Max rows per batch.
+         */
+        NodeCursor(QueryCursor<Cache.Entry<Object, BinaryObject>> cur, Projection proj, int batchSize) {
+            this.cur = cur;
+            this.proj = proj;
+            this.batchSize = batchSize;
+
+            it = cur.iterator();
+        }
+
+        /**
+         * Projects next rows, closing the query after the last one.
+         *
+         * @param nodeId Local node ID.
+         * @return Page.
+         */
+        synchronized Page next(UUID nodeId) {
+            ProjectionCollector collector = new ProjectionCollector(proj);
+
+            try {
+                while (collector.size() < batchSize && it.hasNext())
+                    collector.add(it.next().getValue());
+            }
+            catch (RuntimeException e) {
+                cur.close();
+
+                throw e;
+            }
+
+            boolean last = !it.hasNext();
+
+            if (last)
+                cur.close();
+
+            lastAccess = System.currentTimeMillis();
+
+            return new Page(nodeId, collector.batch(), last);
+        }
+
+        /**
+         * Closes query.
+         */
+        synchronized void close() {
+            cur.close();
+        }
+    }
+
+    /**
+     * Starts local query and projects the first batch of local primary partitions.
+     */
+    private static class OpenJob implements IgniteCallable<Page> {
+        /** */
+        private static final long serialVersionUID = 0L;
+
+        /** Query ID. */
+        private final IgniteUuid id;
+
+        /** Cache name. */
+        private final String cacheName;
+
+        /** Local query, owned by the job. */
+        private final Query<Cache.Entry<Object, BinaryObject>> qry;
+
+        /** Projection. */
+        private final Projection proj;
+
+        /** Max rows per batch. */
+        private final int batchSize;
+
+        /** Local Ignite instance. */
+        @IgniteInstanceResource
+        private transient Ignite ignite;
+
+        /**
+         * @param id Query ID.
+         * @param cacheName Cache name.
+         * @param qry Local query.
+         * @param proj Projection.
+         * @param batchSize Max rows per batch.
+         */
+        OpenJob(IgniteUuid id, String cacheName, Query<Cache.Entry<Object, BinaryObject>> qry, Projection proj,
+            int batchSize) {
+            this.id = id;
+            this.cacheName = cacheName;
+            this.qry = qry;
+            this.proj = proj;
+            this.batchSize = batchSize;
+        }
+
+        /** {@inheritDoc} */
+        @Override public Page call() {
+            ConcurrentMap<IgniteUuid, NodeCursor> cursors = cursors(ignite);
+
+            long now = System.currentTimeMillis();
+
+            for (Map.Entry<IgniteUuid, NodeCursor> e : cursors.entrySet()) {
+                if (now - e.getValue().lastAccess > IDLE_TIMEOUT && cursors.remove(e.getKey(), e.getValue()))
+                    e.getValue().close();
+            }
+
+            IgniteCache<Object, BinaryObject> cache = ignite.cache(cacheName).withKeepBinary();
+
+            NodeCursor cur = new NodeCursor(cache.query(qry), proj, batchSize);
+
+            Page page = cur.next(ignite.cluster().localNode().id());
+
+            if (!page.last)
+                cursors.put(id, cur);
+
+            return page;
+        }
+    }
+
+    /**
+     * Projects the next batch of an open local query or closes it.
+     */
+    private static class FetchJob implements IgniteCallable<Page> {
+        /** */
+        private static final long serialVersionUID = 0L;
+
+        /** Query ID. */
+        private final IgniteUuid id;
+
+        /** Whether to close the query instead. */
+        private final boolean close;
+
+        /** Local Ignite instance. */
+        @IgniteInstanceResource
+        private transient Ignite ignite;
+
+        /**
+         * @param id Query ID.
+         * @param close Whether to close the query instead.
+         */
+        FetchJob(IgniteUuid id, boolean close) {
+            this.id = id;
+            this.close = close;
+        }
+
+        /** {@inheritDoc} */
+        @Override public Page call() {
+            ConcurrentMap<IgniteUuid, NodeCursor> cursors = cursors(ignite);
+
+            if (close) {
+                NodeCursor cur = cursors.remove(id);
+
+                if (cur != null)
+                    cur.close();
+
+                return null;
+            }
+
+            NodeCursor cur = cursors.get(id);
+
+            if (cur == null)
+                throw new IgniteException("Projection query is closed or expired: " + id);
+
+            Page page;
+
+            try {
+                page = cur.next(ignite.cluster().localNode().id());
+            }
+            catch (RuntimeException e) {
+                cursors.remove(id);
+
+                throw e;
+            }
+
+            if (page.last)
+                cursors.remove(id);
+
+            return page;
+        }
+    }
+
+    /**
+     * Caller side cursor, fetches next batch of a node once the previous ones are consumed.
+     */
+    private static class Cursor implements QueryCursor<ProjectionBatch>, Iterator<ProjectionBatch> {
+        /** Ignite. */
+        private final Ignite ignite;
+
+        /** Query ID. */
+        private final IgniteUuid id;
+
+        /** Fetched non-empty batches. */
+        private final Queue<ProjectionBatch> ready = new ArrayDeque<>();
+
+        /** Nodes with more batches. */
+        private final List<UUID> open = new ArrayList<>();
+
+        /** Whether iterator was returned. */
+        private boolean iterated;
+
+        /**
+         * @param ignite Ignite.
+         * @param id Query ID.
+         * @param first First page of every node.
+         */
+        Cursor(Ignite ignite, IgniteUuid id, Collection<Page> first) {
+            this.ignite = ignite;
+            this.id = id;
+
+            for (Page page : first)
+                onPage(page);
+        }
+
+        /**
+         * @param page Fetched page.
+         */
+        private void onPage(Page page) {
+            if (page.batch.size() > 0)
+                ready.add(page.batch);
+
+            if (page.last)
+                open.remove(page.nodeId);
+            else if (!open.contains(page.nodeId))
+                open.add(page.nodeId);
+        }
+
+        /** {@inheritDoc} */
+        @Override public Iterator<ProjectionBatch> iterator() {
+            if (iterated)
+                throw new IgniteException("Iterator is already fetched or query was cancelled.");
+
+            iterated = true;
+
+            return this;
+        }
+
+        /** {@inheritDoc} */
+        @Override public List<ProjectionBatch> getAll() {
+            List<ProjectionBatch> res = new ArrayList<>();
+
+            try {
+                for (ProjectionBatch b : this)
+                    res.add(b);
+            }
+            finally {
+                close();
+            }
+
+            return res;
+        }
+
+        /** {@inheritDoc} */
+        @Override public boolean hasNext() {
+            while (ready.isEmpty() && !open.isEmpty())
+                onPage(ignite.compute(ignite.cluster().forNodeId(open.get(0))).call(new FetchJob(id, false)));
+
+            return !ready.isEmpty();
+        }
+
+        /** {@inheritDoc} */
+        @Override public ProjectionBatch next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            return ready.poll();
+        }
+
+        /** {@inheritDoc} */
+        @Override public void close() {
+            ready.clear();
+
+            if (open.isEmpty())
+                return;
+
+            ClusterGroup grp = ignite.cluster().forNodeIds(open);
+
+            open.clear();
+
+            // Nodes that left have closed their queries.
+            if (!grp.nodes().isEmpty())
+                ignite.compute(grp).broadcast(new FetchJob(id, true));
+        }
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.router;
+
+import java.util.Arrays;
+
+/**
+ * Equi-depth histogram over a numeric column, maintained incrementally.
+ * <p>
+ * The first values are kept exactly; once there are enough of them they are split into buckets of
+ * equal depth. From then on adding or removing a value only adjusts the count of its bucket, so
+ * counts always reflect live values. A bucket that grows too deep is split in half, assuming values
+ * are spread uniformly inside it, and the two adjacent buckets with the fewest values are merged to
+ * keep the number of buckets. Emptied ranges thus stay as empty buckets until they are merged.
+ * Not thread safe.
+ */
+public class EquiDepthHistogram {
+    /** Bucket depth skew that triggers split. */
+    private static final double MAX_SKEW = 2.0;
+
+    /** Number of buckets. */
+    private final int buckets;
+
+    /** Values kept before buckets are built, {@code null} afterwards. */
+    private double[] vals;
+
+    /** Number of values in {@link #vals}. */
+    private int valsCnt;
+
+    /** Upper bounds of buckets, {@code bounds[buckets - 1]} is the max value, {@code null} until built. */
+    private double[] bounds;
+
+    /** Min value. */
+    private double min;
+
+    /** Value counts per bucket, fractional after splits. */
+    private double[] counts;
+
+    /** Total number of values. */
+    private long total;
+
+    /**
+     * @param buckets Number of buckets.
+     * @param exactSize Number of values kept exactly before buckets are built.
+     */
+    public EquiDepthHistogram(int buckets, int exactSize) {
+        this.buckets = buckets;
+
+        vals = new double[Math.max(1, exactSize)];
+    }
+
+    /**
+     * @param v Added value.
+     */
+    public void add(double v) {
+        total++;
+
+        if (bounds == null) {
+            vals[valsCnt++] = v;
+
+            if (valsCnt == vals.length)
+                build();
+
+            return;
+        }
+
+        // Values outside of current range stretch the edge buckets.
+        if (v < min)
+            min = v;
+        else if (v > bounds[bounds.length - 1])
+            bounds[bounds.length - 1] = v;
+
+        int b = bucket(v);
+
+        if (++counts[b] > MAX_SKEW * averageDepth())
+            split(b);
+    }
+
+    /**
+     * @param v Removed value.
+     */
+    public void remove(double v) {
+        if (total == 0)
+            return;
+
+        if (bounds == null) {
+            for (int i = 0; i < valsCnt; i++) {
+                if (vals[i] == v) {
+                    vals[i] = vals[--valsCnt];
+                    total--;
+
+                    break;
+                }
+            }
+
+            return;
+        }
+
+        total--;
+
+        int b = bucket(v);
+
+        // Bucket may hold less than one value after splits, take the rest from the nearest ones.
+        double left = 1;
+
+        for (int d = 0; left > 0 && (b - d >= 0 || b + d < counts.length); d++) {
+            left = take(b - d, left);
+
+            if (d > 0)
+                left = take(b + d, left);
+        }
+    }
+
+    /**
+     * @return Total number of values.
+     */
+    public long total() {
+        return total;
+    }
+
+    /**
+     * Estimates fraction of values within {@code [lo, hi]}, assuming integral values (like salaries)
+     * uniformly distributed inside buckets.
+     *
+     * @param lo Lower bound, inclusive.
+     * @param hi Upper bound, inclusive.
+     * @return Selectivity in {@code [0, 1]}.
+     */
+    public double selectivity(double lo, double hi) {
+        if (total == 0 || hi < lo)
+            return 0;
+
+        if (bounds == null) {
+            int rows = 0;
+
+            for (int i = 0; i < valsCnt; i++) {
+                if (vals[i] >= lo && vals[i] <= hi)
+                    rows++;
+            }
+
+            return (double)rows / valsCnt;
+        }
+
+        double rows = 0;
+        double from = min;
+
+        for (int b = 0; b < counts.length; b++) {
+            double to = bounds[b];
+
+            double overlapLo = Math.max(lo, from);
+            double overlapHi = Math.min(hi, to);
+
+            if (overlapHi >= overlapLo) {
+                double width = to - from;
+
+                rows += width <= 0 ? counts[b] : counts[b] * Math.min(1, (overlapHi - overlapLo + 1) / (width + 1));
+            }
+
+            from = to;
+        }
+
+        double cnt = Arrays.stream(counts).sum();
+
+        return cnt == 0 ? 0 : Math.min(1, rows / cnt);
+    }
+
+    /**
+     * @param v Value.
+     * @return Bucket index.
+     */
+    private int bucket(double v) {
+        int i = Arrays.binarySearch(bounds, v);
+
+        if (i < 0)
+            i = -i - 1;
+
+        return Math.min(i, bounds.length - 1);
+    }
+
+    /**
+     * @param b Bucket index, may be out of range.
+     * @param cnt Count to take.
+     * @return Count that the bucket did not have.
+     */
+    private double take(int b, double cnt) {
+        if (b < 0 || b >= counts.length)
+            return cnt;
+
+        double taken = Math.min(cnt, counts[b]);
+
+        counts[b] -= taken;
+
+        return cnt - taken;
+    }
+
+    /**
+     * @return Average number of values per bucket.
+     */
+    private double averageDepth() {
+        return Math.max(1.0, (double)total / counts.length);
+    }
+
+    /**
+     * Builds buckets from exactly kept values, with exact counts.
+     */
+    private void build() {
+        double[] sorted = Arrays.copyOf(vals, valsCnt);
+
+        Arrays.sort(sorted);
+
+        int n = sorted.length;
+        int cnt = Math.min(buckets, n);
+
+        min = sorted[0];
+        bounds = new double[cnt];
+        counts = new double[cnt];
+
+        for (int b = 0; b < cnt; b++)
+            bounds[b] = sorted[(int)((long)(b + 1) * n / cnt) - 1];
+
+        for (double v : sorted)
+            counts[bucket(v)]++;
+
+        vals = null;
+        valsCnt = 0;
+    }
+
+    /**
+     * Splits bucket in half and merges the two adjacent buckets with the fewest values, if they
+     * hold fewer values than an average bucket.
+     *
+     * @param b Bucket to split.
+     */
+    private void split(int b) {
+        double from = b == 0 ? min : bounds[b - 1];
+
+        if (bounds[b] <= from)
+            return;
+
+        int merge = -1;
+
+        for (int i = 0; i < counts.length - 1; i++) {
+            if (i != b && i + 1 != b && (merge < 0 || counts[i] + counts[i + 1] < counts[merge] + counts[merge + 1]))
+                merge = i;
+        }
+
+        if (merge < 0 || counts[merge] + counts[merge + 1] >= averageDepth())
+            return;
+
+        int cnt = counts.length;
+
+        double[] newBounds = new double[cnt];
+        double[] newCounts = new double[cnt];
+
+        for (int i = 0, j = 0; i < cnt; i++) {
+            if (i == merge) {
+                // Merged bucket ends where the second one does.
+                newCounts[j] = counts[i] + counts[i + 1];
+                newBounds[j++] = bounds[++i];
+            }
+            else if (i == b) {
+                newCounts[j] = counts[i] / 2;
+                newBounds[j++] = from + (bounds[i] - from) / 2;
+                newCounts[j] = counts[i] / 2;
+                newBounds[j++] = bounds[i];
+            }
+            else {
+                newCounts[j] = counts[i];
+                newBounds[j++] = bounds[i];
+            }
+        }
+
+        bounds = newBounds;
+        counts = newCounts;
+    }
+}
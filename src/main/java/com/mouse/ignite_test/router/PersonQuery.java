@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.router;
+
+import java.io.Serializable;
+
+import com.mouse.ignite_test.model.Person;
+import org.apache.ignite.binary.BinaryObject;
+
+/**
+ * Conjunction of predicates over persons: {@code orgId} equality, inclusive {@code salary}
+ * range and {@code resume} substring. Unset predicates match everything.
+ */
+public class PersonQuery implements Serializable {
+    /** */
+    private static final long serialVersionUID = 0L;
+
+    /** Organization ID. */
+    private Long orgId;
+
+    /** Min salary, inclusive. */
+    private Double minSalary;
+
+    /** Max salary, inclusive. */
+    private Double maxSalary;
+
+    /** Resume substring. */
+    private String resume;
+
+    /**
+     * @param orgId Organization ID.
+     * @return {@code this} for chaining.
+     */
+    public PersonQuery orgId(long orgId) {
+        this.orgId = orgId;
+
+        return this;
+    }
+
+    /**
+     * @param min Min salary, inclusive.
+     * @param max Max salary, inclusive.
+     * @return {@code this} for chaining.
+     */
+    public PersonQuery salary(double min, double max) {
+        minSalary = min;
+        maxSalary = max;
+
+        return this;
+    }
+
+    /**
+     * @param min Min salary, inclusive.
+     * @return {@code this} for chaining.
+     */
+    public PersonQuery salaryFrom(double min) {
+        minSalary = min;
+
+        return this;
+    }
+
+    /**
+     * @param resume Substring resume must contain.
+     * @return {@code this} for chaining.
+     */
+    public PersonQuery resumeContains(String resume) {
+        this.resume = resume;
+
+        return this;
+    }
+
+    /**
+     * @return Organization ID or {@code null}.
+     */
+    public Long orgId() {
+        return orgId;
+    }
+
+    /**
+     * @return Min salary or {@code null}.
+     */
+    public Double minSalary() {
+        return minSalary;
+    }
+
+    /**
+     * @return Max salary or {@code null}.
+     */
+    public Double maxSalary() {
+        return maxSalary;
+    }
+
+    /**
+     * @return Resume substring or {@code null}.
+     */
+    public String resume() {
+        return resume;
+    }
+
+    /**
+     * @return {@code True} if salary range is set.
+     */
+    public boolean hasSalary() {
+        return minSalary != null || maxSalary != null;
+    }
+
+    /**
+     * @param p Person.
+     * @return {@code True} if person matches all predicates.
+     */
+    public boolean matches(Person p) {
+        return (orgId == null || orgId.equals(p.orgId)) &&
+            (minSalary == null || p.salary >= minSalary) &&
+            (maxSalary == null || p.salary <= maxSalary) &&
+            (resume == null || (p.resume != null && p.resume.contains(resume)));
+    }
+
+    /**
+     * @param p Person in binary form.
+     * @return {@code True} if person matches all predicates, reads only the fields it needs.
+     */
+    public boolean matches(BinaryObject p) {
+        if (orgId != null && !orgId.equals(p.<Long>field("orgId")))
+            return false;
+
+        if (hasSalary()) {
+            double salary = p.<Double>field("salary");
+
+            if ((minSalary != null && salary < minSalary) || (maxSalary != null && salary > maxSalary))
+                return false;
+        }
+
+        if (resume != null) {
+            String s = p.field("resume");
+
+            return s != null && s.contains(resume);
+        }
+
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override public String toString() {
+        return "PersonQuery [orgId=" + orgId +
+            ", minSalary=" + minSalary +
+            ", maxSalary=" + maxSalary +
+            ", resume=" + resume + ']';
+    }
+}
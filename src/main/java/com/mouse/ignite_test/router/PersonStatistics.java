@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.router;
+
+import com.mouse.ignite_test.model.Person;
+import com.mouse.ignite_test.util.LongHashMap;
+
+/**
+ * Per-field statistics of persons cache used by {@link QueryRouter} to estimate selectivity.
+ * <ul>
+ *     <li>{@code salary}: equi-depth histogram;</li>
+ *     <li>{@code orgId}: exact per-value counts and number of distinct values.</li>
+ * </ul>
+ * Statistics are updated incrementally on every added or removed person.
+ */
+public class PersonStatistics {
+    /** Salary histogram buckets. */
+    private static final int SALARY_BUCKETS = 64;
+
+    /** Salaries kept exactly before histogram buckets are built. */
+    private static final int SALARY_SAMPLE = 4096;
+
+    /** Salary histogram. */
+    private final EquiDepthHistogram salary = new EquiDepthHistogram(SALARY_BUCKETS, SALARY_SAMPLE);
+
+    /** Number of persons per organization. */
+    private final LongHashMap<long[]> orgCounts = new LongHashMap<>();
+
+    /** Number of organizations with at least one person. */
+    private int distinctOrgs;
+
+    /** Number of persons. */
+    private long total;
+
+    /**
+     * @param p Added person.
+     */
+    public synchronized void add(Person p) {
+        total++;
+
+        salary.add(p.salary);
+
+        if (p.orgId != null) {
+            long[] cnt = orgCounts.get(p.orgId);
+
+            if (cnt == null)
+                orgCounts.put(p.orgId, cnt = new long[1]);
+
+            if (cnt[0]++ == 0)
+                distinctOrgs++;
+        }
+    }
+
+    /**
+     * @param p Removed person.
+     */
+    public synchronized void remove(Person p) {
+        if (total == 0)
+            return;
+
+        total--;
+
+        salary.remove(p.salary);
+
+        if (p.orgId != null) {
+            long[] cnt = orgCounts.get(p.orgId);
+
+            if (cnt != null && cnt[0] > 0 && --cnt[0] == 0)
+                distinctOrgs--;
+        }
+    }
+
+    /**
+     * @return Number of persons.
+     */
+    public synchronized long total() {
+        return total;
+    }
+
+    /**
+     * @return Number of distinct {@code orgId} values.
+     */
+    public synchronized int distinctOrgs() {
+        return distinctOrgs;
+    }
+
+    /**
+     * @param orgId Organization ID.
+     * @return Estimated fraction of persons with given {@code orgId}.
+     */
+    public synchronized double orgSelectivity(long orgId) {
+        if (total == 0)
+            return 0;
+
+        long[] cnt = orgCounts.get(orgId);
+
+        if (cnt != null)
+            return (double)cnt[0] / total;
+
+        // Fall back to uniform distribution over known organizations.
+        return distinctOrgs == 0 ? 1 : 1.0 / distinctOrgs;
+    }
+
+    /**
+     * @param min Min salary, inclusive.
+     * @param max Max salary, inclusive.
+     * @return Estimated fraction of persons with salary in range.
+     */
+    public synchronized double salarySelectivity(double min, double max) {
+        return salary.selectivity(min, max);
+    }
+}
@@ -0,0 +1,398 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.router;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import javax.cache.Cache;
+import javax.cache.event.CacheEntryEvent;
+import javax.cache.event.EventType;
+
+import com.mouse.ignite_test.CacheQueryExample;
+import com.mouse.ignite_test.model.Person;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.IgniteLogger;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.cache.affinity.AffinityKey;
+import org.apache.ignite.cache.query.ContinuousQuery;
+import org.apache.ignite.cache.query.IndexQuery;
+import org.apache.ignite.cache.query.IndexQueryCriterion;
+import org.apache.ignite.cache.query.QueryCursor;
+import org.apache.ignite.cache.query.ScanQuery;
+import org.apache.ignite.cache.query.SqlFieldsQuery;
+
+import static org.apache.ignite.cache.query.IndexQueryCriteriaBuilder.between;
+import static org.apache.ignite.cache.query.IndexQueryCriteriaBuilder.eq;
+import static org.apache.ignite.cache.query.IndexQueryCriteriaBuilder.gte;
+import static org.apache.ignite.cache.query.IndexQueryCriteriaBuilder.lte;
+
+/**
+ * Routes {@link PersonQuery} to the engine estimated to be the cheapest.
+ * <p>
+ * {@code CacheQueryExample.indexQuery()} shows that the fastest path depends on the query:
+ * the in-memory list wins for broad predicates, the index for selective ones, keep-binary for
+ * filters that reject most rows. The router keeps {@link PersonStatistics} fresh through a
+ * continuous query, estimates the number of rows each engine has to touch and return, and picks
+ * the engine with the lowest cost. Every choice is logged and counted.
+ * <p>
+ * The local mirror is an optional collection of all persons, like {@code CacheQueryExample.personList};
+ * keeping it in sync with the cache is up to the caller.
+ */
+public class QueryRouter implements AutoCloseable {
+    /** Selectivity assumed for {@code resume} substring predicate, there is no statistics for text. */
+    private static final double RESUME_SELECTIVITY = 0.5;
+
+    /**
+     * Query engine. Cost coefficients are calibrated with {@link QueryRouterBenchmark} on a single node.
+     */
+    public enum Engine {
+        /** Stream over local mirror. */
+        MIRROR(0, 0.025, 0, 0.05),
+
+        /** {@link IndexQuery} over binary objects, residual predicates as binary filter. */
+        INDEX(800, 0, 0.5, 2.0),
+
+        /** {@link ScanQuery} over binary objects. */
+        SCAN(1000, 0.8, 0, 2.0),
+
+        /** {@link SqlFieldsQuery} returning {@code _val}. */
+        SQL(1200, 0, 0.6, 2.5);
+
+        /** Fixed cost per query, microseconds. */
+        private final double fixed;
+
+        /** Cost per row of the whole data set. */
+        private final double perRow;
+
+        /** Cost per row matched by index criteria. */
+        private final double perIndexRow;
+
+        /** Cost per returned row. */
+        private final double perResult;
+
+        /**
+         * @param fixed Fixed cost.
+         * @param perRow Cost per row.
+         * @param perIndexRow Cost per index row.
+         * @param perResult Cost per result.
+         */
+        Engine(double fixed, double perRow, double perIndexRow, double perResult) {
+            this.fixed = fixed;
+            this.perRow = perRow;
+            this.perIndexRow = perIndexRow;
+            this.perResult = perResult;
+        }
+
+        /**
+         * @param rows Number of rows in cache.
+         * @param idxRows Number of rows matched by index criteria.
+         * @param res Number of returned rows.
+         * @return Estimated cost, microseconds.
+         */
+        double cost(double rows, double idxRows, double res) {
+            return fixed + perRow * rows + perIndexRow * idxRows + perResult * res;
+        }
+    }
+
+    /** Persons cache. */
+    private final IgniteCache<AffinityKey<Long>, Person> cache;
+
+    /** Local mirror, {@code null} if there is none. */
+    private final Collection<Person> mirror;
+
+    /** Logger. */
+    private final IgniteLogger log;
+
+    /** Statistics. */
+    private final PersonStatistics stats = new PersonStatistics();
+
+    /** Number of times every engine was picked. */
+    private final Map<Engine, LongAdder> picks = new EnumMap<>(Engine.class);
+
+    /** Continuous query cursor maintaining statistics. */
+    private QueryCursor<Cache.Entry<AffinityKey<Long>, Person>> statsCur;
+
+    /**
+     * @param ignite Ignite.
+     * @param mirror Local mirror of all persons, {@code null} if there is none.
+     */
+    public QueryRouter(Ignite ignite, Collection<Person> mirror) {
+        this.mirror = mirror;
+
+        cache = ignite.cache(CacheQueryExample.PERSON_CACHE);
+        log = ignite.log().getLogger(QueryRouter.class);
+
+        for (Engine e : Engine.values())
+            picks.put(e, new LongAdder());
+    }
+
+    /**
+     * Collects initial statistics and subscribes to cache updates.
+     *
+     * @return {@code this} for chaining.
+     */
+    public QueryRouter start() {
+        ContinuousQuery<AffinityKey<Long>, Person> qry = new ContinuousQuery<>();
+
+        qry.setInitialQuery(new ScanQuery<>());
+        qry.setLocalListener(evts -> {
+            for (CacheEntryEvent<? extends AffinityKey<Long>, ? extends Person> e : evts) {
+                if (e.getOldValue() != null)
+                    stats.remove(e.getOldValue());
+
+                if (e.getEventType() != EventType.REMOVED && e.getEventType() != EventType.EXPIRED &&
+                    e.getValue() != null)
+                    stats.add(e.getValue());
+            }
+        });
+
+        statsCur = cache.query(qry);
+
+        for (Cache.Entry<AffinityKey<Long>, Person> e : statsCur)
+            stats.add(e.getValue());
+
+        return this;
+    }
+
+    /**
+     * @return Statistics.
+     */
+    public PersonStatistics statistics() {
+        return stats;
+    }
+
+    /**
+     * @return Number of times every engine was picked.
+     */
+    public Map<Engine, Long> picks() {
+        Map<Engine, Long> res = new EnumMap<>(Engine.class);
+
+        picks.forEach((e, cnt) -> res.put(e, cnt.sum()));
+
+        return res;
+    }
+
+    /**
+     * Estimates cost of the query for every available engine.
+     *
+     * @param q Query.
+     * @return Estimated cost per engine, microseconds.
+     */
+    public Map<Engine, Double> estimate(PersonQuery q) {
+        double rows = stats.total();
+
+        double orgSel = q.orgId() != null ? stats.orgSelectivity(q.orgId()) : 1;
+        double salarySel = q.hasSalary() ? stats.salarySelectivity(
+            q.minSalary() != null ? q.minSalary() : Double.NEGATIVE_INFINITY,
+            q.maxSalary() != null ? q.maxSalary() : Double.POSITIVE_INFINITY) : 1;
+        double resumeSel = q.resume() != null ? RESUME_SELECTIVITY : 1;
+
+        // Both orgId alone and (orgId, salary) are served by an index, so is salary alone.
+        double idxRows = rows * orgSel * salarySel;
+        double res = idxRows * resumeSel;
+
+        Map<Engine, Double> costs = new EnumMap<>(Engine.class);
+
+        for (Engine e : Engine.values()) {
+            if (e != Engine.MIRROR || mirror != null)
+                costs.put(e, e.cost(rows, idxRows, res));
+        }
+
+        return costs;
+    }
+
+    /**
+     * @param q Query.
+     * @return Engine with the lowest estimated cost.
+     */
+    public Engine choose(PersonQuery q) {
+        Map<Engine, Double> costs = estimate(q);
+
+        Engine best = null;
+
+        for (Map.Entry<Engine, Double> e : costs.entrySet()) {
+            if (best == null || e.getValue() < costs.get(best))
+                best = e.getKey();
+        }
+
+        if (log.isDebugEnabled())
+            log.debug("Routed query to " + best + " [qry=" + q + ", costs=" + costs + ']');
+
+        picks.get(best).increment();
+
+        return best;
+    }
+
+    /**
+     * Executes query on the cheapest engine.
+     *
+     * @param q Query.
+     * @return Matching persons.
+     */
+    public List<Person> query(PersonQuery q) {
+        return query(q, choose(q));
+    }
+
+    /**
+     * Executes query on given engine.
+     *
+     * @param q Query.
+     * @param engine Engine.
+     * @return Matching persons.
+     */
+    public List<Person> query(PersonQuery q, Engine engine) {
+        switch (engine) {
+            case MIRROR:
+                if (mirror == null)
+                    throw new IllegalStateException("Router has no local mirror.");
+
+                return mirror.stream().filter(q::matches).collect(Collectors.toList());
+
+            case INDEX:
+                return indexQuery(q);
+
+            case SCAN:
+                return scanQuery(q);
+
+            case SQL:
+                return sqlQuery(q);
+
+            default:
+                throw new IllegalArgumentException("Unknown engine: " + engine);
+        }
+    }
+
+    /**
+     * @param q Query.
+     * @return Matching persons.
+     */
+    private List<Person> indexQuery(PersonQuery q) {
+        List<IndexQueryCriterion> criteria = new ArrayList<>();
+
+        if (q.orgId() != null)
+            criteria.add(eq("orgId", q.orgId()));
+
+        if (q.minSalary() != null && q.maxSalary() != null)
+            criteria.add(between("salary", q.minSalary(), q.maxSalary()));
+        else if (q.minSalary() != null)
+            criteria.add(gte("salary", q.minSalary()));
+        else if (q.maxSalary() != null)
+            criteria.add(lte("salary", q.maxSalary()));
+
+        IndexQuery<BinaryObject, BinaryObject> qry = new IndexQuery<BinaryObject, BinaryObject>(Person.class.getName())
+            .setCriteria(criteria);
+
+        if (q.resume() != null)
+            qry.setFilter((k, v) -> q.matches(v));
+
+        return deserialize(cache.withKeepBinary().query(qry));
+    }
+
+    /**
+     * @param q Query.
+     * @return Matching persons.
+     */
+    private List<Person> scanQuery(PersonQuery q) {
+        return deserialize(cache.withKeepBinary().query(
+            new ScanQuery<BinaryObject, BinaryObject>((k, v) -> q.matches(v))));
+    }
+
+    /**
+     * @param q Query.
+     * @return Matching persons.
+     */
+    private List<Person> sqlQuery(PersonQuery q) {
+        StringBuilder sql = new StringBuilder("select _val from Person where true");
+        List<Object> args = new ArrayList<>();
+
+        if (q.orgId() != null) {
+            sql.append(" and orgId = ?");
+            args.add(q.orgId());
+        }
+
+        if (q.minSalary() != null) {
+            sql.append(" and salary >= ?");
+            args.add(q.minSalary());
+        }
+
+        if (q.maxSalary() != null) {
+            sql.append(" and salary <= ?");
+            args.add(q.maxSalary());
+        }
+
+        if (q.resume() != null) {
+            sql.append(" and resume like ? escape '\\'");
+            args.add('%' + escapeLike(q.resume()) + '%');
+        }
+
+        List<Person> res = new ArrayList<>();
+
+        try (QueryCursor<List<?>> cur = cache.query(new SqlFieldsQuery(sql.toString()).setArgs(args.toArray()))) {
+            for (List<?> row : cur)
+                res.add((Person)row.get(0));
+        }
+
+        return res;
+    }
+
+    /**
+     * @param s String.
+     * @return {@code LIKE} pattern matching {@code s} literally, with backslash as escape character.
+     */
+    static String escapeLike(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 8);
+
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+
+            if (c == '%' || c == '_' || c == '\\')
+                sb.append('\\');
+
+            sb.append(c);
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * @param cur Cursor over binary entries.
+     * @return Deserialized persons.
+     */
+    private static List<Person> deserialize(QueryCursor<Cache.Entry<BinaryObject, BinaryObject>> cur) {
+        List<Person> res = new ArrayList<>();
+
+        try (cur) {
+            for (Cache.Entry<BinaryObject, BinaryObject> e : cur)
+                res.add(e.getValue().deserialize());
+        }
+
+        return res;
+    }
+
+    /** {@inheritDoc} */
+    @Override public void close() {
+        if (statsCur != null)
+            statsCur.close();
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.router;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.mouse.ignite_test.cluster.ClusterHarness;
+import com.mouse.ignite_test.model.Person;
+import com.mouse.ignite_test.router.QueryRouter.Engine;
+import org.apache.ignite.Ignite;
+
+/**
+ * Validates {@link QueryRouter} picks against an oracle that runs every query on every engine.
+ * <p>
+ * For each query of a mixed workload the oracle measures all engines (best of several runs)
+ * and checks they return the same number of rows. The report shows how often the router picked
+ * the fastest engine and how much slower the routed workload is than the oracle and than
+ * always using a single engine.
+ * <p>
+ * Arguments (all optional, positional): persons (default {@code 100000}), organizations
+ * (default {@code 100}), queries (default {@code 200}), runs per engine (default {@code 3}).
+ */
+public class QueryRouterBenchmark {
+    /**
+     * Executes benchmark.
+     *
+     * @param args Command line arguments, see class description.
+     */
+    public static void main(String[] args) {
+        int persons = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int orgs = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int queries = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        int runs = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+
+        try (Ignite ignite = ClusterHarness.startNode("router-bench")) {
+            ignite.getOrCreateCache(ClusterHarness.personCacheConfiguration());
+
+            Random r = new Random(42);
+
+            List<Person> mirror = new ArrayList<>(persons);
+
+            for (long id = 1; id <= persons; id++)
+                mirror.add(ClusterHarness.person(id, orgs, r));
+
+            ClusterHarness.loadPersons(ignite, mirror);
+
+            try (QueryRouter router = new QueryRouter(ignite, mirror).start()) {
+                // Warm up every engine.
+                for (int i = 0; i < 10; i++) {
+                    for (Engine e : Engine.values())
+                        router.query(randomQuery(r, orgs), e);
+                }
+
+                Map<Engine, Long> singleTotal = new EnumMap<>(Engine.class);
+                Map<Engine, Integer> oracleWins = new EnumMap<>(Engine.class);
+
+                long routedTotal = 0;
+                long oracleTotal = 0;
+                int hits = 0;
+
+                for (int i = 0; i < queries; i++) {
+                    PersonQuery q = randomQuery(r, orgs);
+
+                    Engine picked = router.choose(q);
+
+                    Engine best = null;
+                    long bestTime = Long.MAX_VALUE;
+                    int expRows = -1;
+
+                    Map<Engine, Long> times = new EnumMap<>(Engine.class);
+
+                    for (Engine e : Engine.values()) {
+                        long time = Long.MAX_VALUE;
+
+                        for (int run = 0; run < runs; run++) {
+                            long start = System.nanoTime();
+
+                            int rows = router.query(q, e).size();
+
+                            time = Math.min(time, System.nanoTime() - start);
+
+                            if (expRows == -1)
+                                expRows = rows;
+                            else if (rows != expRows)
+                                throw new IllegalStateException("Engines disagree [qry=" + q + ", engine=" + e +
+                                    ", rows=" + rows + ", expected=" + expRows + ']');
+                        }
+
+                        times.put(e, time);
+                        singleTotal.merge(e, time, Long::sum);
+
+                        if (time < bestTime) {
+                            bestTime = time;
+                            best = e;
+                        }
+                    }
+
+                    oracleWins.merge(best, 1, Integer::sum);
+
+                    routedTotal += times.get(picked);
+                    oracleTotal += bestTime;
+
+                    if (picked == best)
+                        hits++;
+                }
+
+                System.out.println();
+                System.out.println(">>> Router picks: " + router.picks());
+                System.out.println(">>> Oracle picks: " + oracleWins);
+                System.out.printf(">>> Router picked the fastest engine for %d of %d queries (%.1f%%)%n",
+                    hits, queries, 100.0 * hits / queries);
+                System.out.printf(">>> Total time: oracle=%d ms, router=%d ms (%.2fx)%n",
+                    oracleTotal / 1_000_000, routedTotal / 1_000_000, (double)routedTotal / oracleTotal);
+
+                for (Map.Entry<Engine, Long> e : singleTotal.entrySet())
+                    System.out.printf(">>>     always %-6s %d ms (%.2fx)%n", e.getKey(), e.getValue() / 1_000_000,
+                        (double)e.getValue() / oracleTotal);
+            }
+        }
+    }
+
+    /**
+     * @param r Random.
+     * @param orgs Number of organizations.
+     * @return Random query from the mix used by {@code CacheQueryExample.indexQuery()}.
+     */
+    private static PersonQuery randomQuery(Random r, int orgs) {
+        long orgId = 1 + r.nextInt(orgs);
+        double salary = r.nextInt(ClusterHarness.MAX_SALARY);
+
+        switch (r.nextInt(6)) {
+            case 0:
+                return new PersonQuery().orgId(orgId);
+
+            case 1:
+                return new PersonQuery().orgId(orgId).salaryFrom(salary);
+
+            case 2:
+                return new PersonQuery().salary(salary, salary + r.nextInt(50));
+
+            case 3:
+                return new PersonQuery().salaryFrom(salary);
+
+            case 4:
+                return new PersonQuery().salaryFrom(salary).resumeContains("Master");
+
+            default:
+                return new PersonQuery().resumeContains("Degree." + r.nextInt(1000));
+        }
+    }
+}
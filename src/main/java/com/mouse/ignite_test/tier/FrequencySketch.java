@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.tier;
+
+/**
+ * Approximate access counts of keys: a count-min sketch with four rows of small saturating counters.
+ * <p>
+ * Estimates never undercount and overcount only on hash collisions. All counters are halved once
+ * the number of increments reaches the sample size, so counts reflect recent accesses and keys
+ * that stopped being popular lose their rank. Not thread safe.
+ */
+class FrequencySketch {
+    /** Number of rows. */
+    private static final int DEPTH = 4;
+
+    /** Max counter value. */
+    private static final int MAX_CNT = 15;
+
+    /** Row seeds, odd. */
+    private static final int[] SEEDS = {0x9E3779B1, 0x85EBCA77, 0xC2B2AE3D, 0x27D4EB2F};
+
+    /** Counters, row after row. */
+    private final byte[] table;
+
+    /** Row width mask. */
+    private final int mask;
+
+    /** Increments between resets. */
+    private final int sampleSize;
+
+    /** Increments since last reset. */
+    private int incs;
+
+    /**
+     * @param expKeys Expected number of keys worth telling apart, usually the hot tier capacity.
+     */
+    FrequencySketch(int expKeys) {
+        int width = Integer.highestOneBit(Math.max(64, expKeys) - 1) << 1;
+
+        table = new byte[DEPTH * width];
+        mask = width - 1;
+        sampleSize = 10 * width;
+    }
+
+    /**
+     * @param hash Key hash.
+     */
+    void increment(int hash) {
+        boolean added = false;
+
+        for (int i = 0; i < DEPTH; i++) {
+            int idx = index(hash, i);
+
+            if (table[idx] < MAX_CNT) {
+                table[idx]++;
+
+                added = true;
+            }
+        }
+
+        if (added && ++incs == sampleSize)
+            reset();
+    }
+
+    /**
+     * @param hash Key hash.
+     * @return Estimated recent number of accesses.
+     */
+    int frequency(int hash) {
+        int res = MAX_CNT;
+
+        for (int i = 0; i < DEPTH; i++)
+            res = Math.min(res, table[index(hash, i)]);
+
+        return res;
+    }
+
+    /**
+     * Halves all counters.
+     */
+    private void reset() {
+        for (int i = 0; i < table.length; i++)
+            table[i] >>= 1;
+
+        incs = 0;
+    }
+
+    /**
+     * @param hash Key hash.
+     * @param row Row.
+     * @return Counter index.
+     */
+    private int index(int hash, int row) {
+        int h = hash * SEEDS[row];
+
+        return row * (mask + 1) + ((h ^ (h >>> 16)) & mask);
+    }
+}
@@ -0,0 +1,336 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.tier;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import org.apache.ignite.cache.eviction.EvictableEntry;
+import org.apache.ignite.cache.eviction.EvictionPolicy;
+
+/**
+ * On-heap eviction policy that keeps frequently accessed entries: the hot tier.
+ * <p>
+ * Ignite creates an on-heap entry on every access of a cache with on-heap caching enabled and
+ * reports it here. A key seen for the first time is admitted if there is room. When the tier is
+ * full, the key is admitted only if it was accessed more often than each least recently used entry
+ * it would displace; those entries are then evicted (demoted). Otherwise the new entry is evicted
+ * right away and is read from off-heap memory next time. Access counts come from a
+ * {@link FrequencySketch}, so a scan or a burst of one-off reads does not flush the tier.
+ * <p>
+ * The tier is bounded by entry count and, optionally, by memory size, where entry size is
+ * {@link EvictableEntry#size()} as in Ignite's own policies. An entry that can't be evicted, for
+ * example because it is locked, stays on heap, so it is put back into the tier as if it had not
+ * been chosen, and the tier is shrunk again on the next access.
+ *
+ * @param <K> Key type.
+ * @param <V> Value type.
+ */
+public class HotTierEvictionPolicy<K, V> implements EvictionPolicy<K, V> {
+    /** Max entries. */
+    private final int maxSize;
+
+    /** Max memory size, {@code 0} for unlimited. */
+    private final long maxMemSize;
+
+    /** Access frequencies. */
+    private final FrequencySketch sketch;
+
+    /** Hot entries by key, least recently used first. */
+    private final LinkedHashMap<Object, Slot<K, V>> hot = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** Memory size of hot entries. */
+    private long memSize;
+
+    /** Accesses of entries in the tier. */
+    private long hits;
+
+    /** Entries admitted. */
+    private long admissions;
+
+    /** Entries evicted to make room. */
+    private long evictions;
+
+    /** Entries not admitted. */
+    private long rejections;
+
+    /**
+     * @param maxSize Max entries.
+     * @param maxMemSize Max memory size, {@code 0} for unlimited.
+     */
+    public HotTierEvictionPolicy(int maxSize, long maxMemSize) {
+        if (maxSize <= 0)
+            throw new IllegalArgumentException("Max size must be positive: " + maxSize);
+
+        this.maxSize = maxSize;
+        this.maxMemSize = maxMemSize;
+
+        sketch = new FrequencySketch(maxSize);
+    }
+
+    /** {@inheritDoc} */
+    @Override public void onEntryAccessed(boolean rmv, EvictableEntry<K, V> entry) {
+        if (!rmv && !entry.isCached())
+            return;
+
+        Object key = entry.getKey();
+
+        List<Slot<K, V>> evict;
+
+        synchronized (this) {
+            if (rmv) {
+                Slot<K, V> slot = hot.remove(key);
+
+                if (slot != null)
+                    memSize -= slot.size;
+
+                return;
+            }
+
+            int hash = key.hashCode();
+
+            sketch.increment(hash);
+
+            Slot<K, V> slot = hot.get(key);
+
+            if (slot != null) {
+                hits++;
+
+                int size = entry.size();
+
+                // Entry may have been recreated since admission.
+                slot.entry = entry;
+                memSize += size - slot.size;
+                slot.size = size;
+
+                evict = shrink(key);
+            }
+            else
+                evict = admit(key, hash, entry);
+        }
+
+        List<Slot<K, V>> failed = null;
+
+        for (Slot<K, V> slot : evict) {
+            if (!slot.entry.evict()) {
+                if (failed == null)
+                    failed = new ArrayList<>();
+
+                failed.add(slot);
+            }
+        }
+
+        if (failed != null)
+            retain(key, failed);
+    }
+
+    /**
+     * Puts back entries that could not be evicted and are still cached, undoing the evictions.
+     *
+     * @param key Key of the accessed entry.
+     * @param slots Slots of entries that could not be evicted.
+     */
+    private synchronized void retain(Object key, List<Slot<K, V>> slots) {
+        for (Slot<K, V> slot : slots) {
+            if (!slot.entry.isCached() || hot.putIfAbsent(slot.key, slot) != null)
+                continue;
+
+            memSize += slot.size;
+
+            // The accessed entry itself was rejected, other entries were displaced.
+            if (key.equals(slot.key)) {
+                rejections--;
+                admissions++;
+            }
+            else
+                evictions--;
+        }
+    }
+
+    /**
+     * @param key Key.
+     * @param hash Key hash.
+     * @param entry New entry.
+     * @return Slots of entries to evict: displaced ones or the new entry itself.
+     */
+    private List<Slot<K, V>> admit(Object key, int hash, EvictableEntry<K, V> entry) {
+        int size = entry.size();
+        int freq = sketch.frequency(hash);
+
+        Slot<K, V> slot = new Slot<>(key, entry, hash, size);
+
+        List<Slot<K, V>> victims = new ArrayList<>();
+
+        int cnt = hot.size() + 1;
+        long mem = memSize + size;
+
+        Iterator<Slot<K, V>> it = hot.values().iterator();
+
+        while (cnt > maxSize || maxMemSize > 0 && mem > maxMemSize) {
+            Slot<K, V> victim = it.hasNext() ? it.next() : null;
+
+            if (victim == null || sketch.frequency(victim.hash) >= freq) {
+                rejections++;
+
+                return Collections.singletonList(slot);
+            }
+
+            victims.add(victim);
+
+            cnt--;
+            mem -= victim.size;
+        }
+
+        for (Slot<K, V> victim : victims)
+            hot.remove(victim.key);
+
+        hot.put(key, slot);
+
+        memSize = mem;
+        admissions++;
+        evictions += victims.size();
+
+        return victims;
+    }
+
+    /**
+     * Evicts least recently used entries other than {@code key} while the tier is over its limits.
+     * Limits are exceeded when an entry grows or entries that could not be evicted are put back.
+     *
+     * @param key Key of the entry just accessed.
+     * @return Slots of entries to evict.
+     */
+    private List<Slot<K, V>> shrink(Object key) {
+        if (!overLimit())
+            return Collections.emptyList();
+
+        List<Slot<K, V>> res = new ArrayList<>();
+
+        for (Iterator<Slot<K, V>> it = hot.values().iterator(); it.hasNext() && overLimit(); ) {
+            Slot<K, V> slot = it.next();
+
+            if (key.equals(slot.key))
+                continue;
+
+            it.remove();
+
+            memSize -= slot.size;
+            evictions++;
+
+            res.add(slot);
+        }
+
+        return res;
+    }
+
+    /**
+     * @return Whether the tier holds more entries or memory than allowed.
+     */
+    private boolean overLimit() {
+        return hot.size() > maxSize || maxMemSize > 0 && memSize > maxMemSize;
+    }
+
+    /**
+     * @return Max entries.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return Max memory size, {@code 0} for unlimited.
+     */
+    public long getMaxMemorySize() {
+        return maxMemSize;
+    }
+
+    /**
+     * @return Entries in the tier.
+     */
+    public synchronized int getCurrentSize() {
+        return hot.size();
+    }
+
+    /**
+     * @return Memory size of entries in the tier.
+     */
+    public synchronized long getCurrentMemorySize() {
+        return memSize;
+    }
+
+    /**
+     * @return Accesses of entries in the tier.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return Entries promoted to the tier.
+     */
+    public synchronized long getAdmissions() {
+        return admissions;
+    }
+
+    /**
+     * @return Entries demoted from the tier to make room.
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return New entries not promoted since they were accessed less often than the entries they would displace.
+     */
+    public synchronized long getRejections() {
+        return rejections;
+    }
+
+    /**
+     * Hot entry.
+     */
+    private static class Slot<K, V> {
+        /** Key. */
+        private final Object key;
+
+        /** Entry. */
+        private EvictableEntry<K, V> entry;
+
+        /** Key hash. */
+        private final int hash;
+
+        /** Memory size. */
+        private int size;
+
+        /**
+         * @param key Key.
+         * @param entry Entry.
+         * @param hash Key hash.
+         * @param size Memory size.
+         */
+        Slot(Object key, EvictableEntry<K, V> entry, int hash, int size) {
+            this.key = key;
+            this.entry = entry;
+            this.hash = hash;
+            this.size = size;
+        }
+    }
+}
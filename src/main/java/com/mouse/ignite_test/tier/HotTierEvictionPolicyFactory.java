@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.tier;
+
+import javax.cache.configuration.Factory;
+
+/**
+ * Creates {@link HotTierEvictionPolicy} on every node of the cache.
+ *
+ * @param <K> Key type.
+ * @param <V> Value type.
+ */
+public class HotTierEvictionPolicyFactory<K, V> implements Factory<HotTierEvictionPolicy<K, V>> {
+    /** */
+    private static final long serialVersionUID = 0L;
+
+    /** Max entries per node. */
+    private final int maxSize;
+
+    /** Max memory size per node, {@code 0} for unlimited. */
+    private final long maxMemSize;
+
+    /**
+     * @param maxSize Max entries per node.
+     * @param maxMemSize Max memory size per node, {@code 0} for unlimited.
+     */
+    public HotTierEvictionPolicyFactory(int maxSize, long maxMemSize) {
+        this.maxSize = maxSize;
+        this.maxMemSize = maxMemSize;
+    }
+
+    /** {@inheritDoc} */
+    @Override public HotTierEvictionPolicy<K, V> create() {
+        return new HotTierEvictionPolicy<>(maxSize, maxMemSize);
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.tier;
+
+import org.apache.ignite.internal.processors.metric.MetricRegistry;
+import org.apache.ignite.spi.metric.LongMetric;
+
+/**
+ * Snapshot of hot, warm and cold tier metrics of a cache on one node.
+ * <p>
+ * Hot tier counters are per entry, warm and cold tier counters are per page of the data region,
+ * which may be shared with other caches. Counters are cumulative, see {@link #minus(TierMetrics)}.
+ */
+public class TierMetrics {
+    /** Hot entries. */
+    private final long hotEntries;
+
+    /** Memory size of hot entries. */
+    private final long hotSize;
+
+    /** Accesses served by the hot tier. */
+    private final long hotHits;
+
+    /** Entries promoted to the hot tier. */
+    private final long promotions;
+
+    /** Entries demoted from the hot tier. */
+    private final long demotions;
+
+    /** Entries not promoted. */
+    private final long rejections;
+
+    /** Page size. */
+    private final int pageSize;
+
+    /** Pages in memory. */
+    private final long warmPages;
+
+    /** Pages written to disk to free memory. */
+    private final long pagesReplaced;
+
+    /** Pages read from disk. */
+    private final long pagesRead;
+
+    /** Pages written to disk. */
+    private final long pagesWritten;
+
+    /** Pages allocated in memory and on disk. */
+    private final long totalPages;
+
+    /**
+     * @param hot Hot tier or {@code null} if there is none.
+     * @param region Data region metric registry.
+     * @param pageSize Page size.
+     */
+    TierMetrics(HotTierEvictionPolicy<?, ?> hot, MetricRegistry region, int pageSize) {
+        if (hot != null) {
+            synchronized (hot) {
+                hotEntries = hot.getCurrentSize();
+                hotSize = hot.getCurrentMemorySize();
+                hotHits = hot.getHits();
+                promotions = hot.getAdmissions();
+                demotions = hot.getEvictions();
+                rejections = hot.getRejections();
+            }
+        }
+        else
+            hotEntries = hotSize = hotHits = promotions = demotions = rejections = 0;
+
+        this.pageSize = pageSize;
+
+        warmPages = value(region, "PhysicalMemoryPages");
+        pagesReplaced = value(region, "PagesReplaced");
+        pagesRead = value(region, "PagesRead");
+        pagesWritten = value(region, "PagesWritten");
+        totalPages = value(region, "TotalAllocatedPages");
+    }
+
+    /**
+     * @param mreg Metric registry.
+     * @param name Metric name.
+     * @return Metric value.
+     */
+    private static long value(MetricRegistry mreg, String name) {
+        LongMetric m = mreg.findMetric(name);
+
+        if (m == null)
+            throw new IllegalStateException("No metric " + name + " in registry " + mreg.name());
+
+        return m.value();
+    }
+
+    /**
+     * @param m Metrics.
+     * @param base Metrics to subtract counters of.
+     */
+    private TierMetrics(TierMetrics m, TierMetrics base) {
+        hotEntries = m.hotEntries;
+        hotSize = m.hotSize;
+        hotHits = m.hotHits - base.hotHits;
+        promotions = m.promotions - base.promotions;
+        demotions = m.demotions - base.demotions;
+        rejections = m.rejections - base.rejections;
+        pageSize = m.pageSize;
+        warmPages = m.warmPages;
+        pagesReplaced = m.pagesReplaced - base.pagesReplaced;
+        pagesRead = m.pagesRead - base.pagesRead;
+        pagesWritten = m.pagesWritten - base.pagesWritten;
+        totalPages = m.totalPages;
+    }
+
+    /**
+     * @param base Earlier snapshot.
+     * @return Metrics with counters since {@code base} and current sizes.
+     */
+    public TierMetrics minus(TierMetrics base) {
+        return new TierMetrics(this, base);
+    }
+
+    /**
+     * @return Entries in the hot tier.
+     */
+    public long hotEntries() {
+        return hotEntries;
+    }
+
+    /**
+     * @return Memory size of entries in the hot tier, serialized key and value bytes.
+     */
+    public long hotSize() {
+        return hotSize;
+    }
+
+    /**
+     * @return Accesses served by the hot tier.
+     */
+    public long hotHits() {
+        return hotHits;
+    }
+
+    /**
+     * @return Entries promoted from the warm to the hot tier.
+     */
+    public long promotions() {
+        return promotions;
+    }
+
+    /**
+     * @return Entries demoted from the hot to the warm tier.
+     */
+    public long demotions() {
+        return demotions;
+    }
+
+    /**
+     * @return Entries read from the warm tier but not promoted, since they were accessed less often
+     * than the hot entries they would displace.
+     */
+    public long rejections() {
+        return rejections;
+    }
+
+    /**
+     * @return Size of pages in the warm tier, that is in off-heap memory.
+     */
+    public long warmSize() {
+        return warmPages * pageSize;
+    }
+
+    /**
+     * @return Pages demoted from the warm to the cold tier: evicted from memory to make room.
+     */
+    public long pagesDemoted() {
+        return pagesReplaced;
+    }
+
+    /**
+     * @return Pages promoted from the cold to the warm tier: read from disk.
+     */
+    public long pagesPromoted() {
+        return pagesRead;
+    }
+
+    /**
+     * @return Pages written to disk, by checkpoints and page replacement.
+     */
+    public long pagesWritten() {
+        return pagesWritten;
+    }
+
+    /**
+     * @return Size of all pages of the region, in memory or on disk only.
+     */
+    public long totalSize() {
+        return totalPages * pageSize;
+    }
+
+    /** {@inheritDoc} */
+    @Override public String toString() {
+        return "TierMetrics [hotEntries=" + hotEntries +
+            ", hotSize=" + hotSize +
+            ", hotHits=" + hotHits +
+            ", promotions=" + promotions +
+            ", demotions=" + demotions +
+            ", rejections=" + rejections +
+            ", warmSize=" + warmSize() +
+            ", pagesPromoted=" + pagesRead +
+            ", pagesDemoted=" + pagesReplaced +
+            ", pagesWritten=" + pagesWritten +
+            ", totalSize=" + totalSize() + ']';
+    }
+}
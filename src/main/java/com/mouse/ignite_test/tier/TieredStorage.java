@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.tier;
+
+import com.mouse.ignite_test.model.Person;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.cache.affinity.AffinityKey;
+import org.apache.ignite.cache.eviction.EvictionPolicy;
+import org.apache.ignite.configuration.CacheConfiguration;
+import org.apache.ignite.configuration.DataRegionConfiguration;
+import org.apache.ignite.configuration.DataStorageConfiguration;
+import org.apache.ignite.configuration.PageReplacementMode;
+import org.apache.ignite.internal.IgniteEx;
+import org.apache.ignite.internal.processors.cache.CacheEvictionManager;
+import org.apache.ignite.internal.processors.cache.GridCacheEvictionManager;
+import org.apache.ignite.internal.processors.cache.IgniteInternalCache;
+import org.apache.ignite.internal.processors.cache.persistence.DataRegionMetricsImpl;
+import org.apache.ignite.internal.processors.metric.impl.MetricUtils;
+
+/**
+ * Configuration of tiered storage for persons and access to its metrics.
+ * <p>
+ * Three tiers, each bounded separately:
+ * <ul>
+ *     <li>hot: on-heap entries selected by {@link HotTierEvictionPolicy} by access frequency,</li>
+ *     <li>warm: pages of the data region in off-heap memory,</li>
+ *     <li>cold: Ignite native persistence on local disk, holding every entry.</li>
+ * </ul>
+ * Pages move between warm and cold tiers by Ignite page replacement. {@link PageReplacementMode#SEGMENTED_LRU}
+ * protects pages accessed more than once from pages read once, so the warm tier also follows access
+ * frequency, at page rather than entry granularity.
+ * <p>
+ * The cache has no SQL or text indexes: Ignite keeps text indexes off-heap outside of data regions
+ * and does not persist them, so they would neither fit a memory budget nor survive a restart.
+ * A node with a persistent region starts inactive and must be activated before the cache is used.
+ */
+public final class TieredStorage {
+    /**
+     * Utility class.
+     */
+    private TieredStorage() {
+        // No-op.
+    }
+
+    /**
+     * @param name Region name.
+     * @param warmSize Max off-heap memory size of the region.
+     * @return Persistent data region configuration with metrics enabled.
+     */
+    public static DataRegionConfiguration dataRegion(String name, long warmSize) {
+        return new DataRegionConfiguration()
+            .setName(name)
+            .setInitialSize(warmSize)
+            .setMaxSize(warmSize)
+            .setPersistenceEnabled(true)
+            .setPageReplacementMode(PageReplacementMode.SEGMENTED_LRU)
+            .setMetricsEnabled(true);
+    }
+
+    /**
+     * @param cacheName Cache name.
+     * @param regionName Persistent region name, see {@link #dataRegion(String, long)}.
+     * @param maxHotEntries Max hot entries per node, {@code 0} to disable hot tier.
+     * @param maxHotMemSize Max memory size of hot entries per node, {@code 0} for unlimited.
+     * @return Persons cache configuration.
+     */
+    public static CacheConfiguration<AffinityKey<Long>, Person> personCacheConfiguration(String cacheName,
+        String regionName, int maxHotEntries, long maxHotMemSize) {
+        CacheConfiguration<AffinityKey<Long>, Person> cfg = new CacheConfiguration<AffinityKey<Long>, Person>(cacheName)
+            .setDataRegionName(regionName);
+
+        if (maxHotEntries > 0) {
+            cfg.setOnheapCacheEnabled(true);
+            cfg.setEvictionPolicyFactory(new HotTierEvictionPolicyFactory<>(maxHotEntries, maxHotMemSize));
+        }
+
+        return cfg;
+    }
+
+    /**
+     * @param ignite Local node.
+     * @param cacheName Cache name.
+     * @return Hot tier of the cache on local node or {@code null} if cache has none.
+     */
+    public static HotTierEvictionPolicy<?, ?> hotTier(Ignite ignite, String cacheName) {
+        IgniteInternalCache<?, ?> cache = ((IgniteEx)ignite).cachex(cacheName);
+
+        if (cache == null)
+            throw new IllegalArgumentException("Cache is not started: " + cacheName);
+
+        CacheEvictionManager evicts = cache.context().evicts();
+
+        EvictionPolicy<?, ?> plc = evicts instanceof GridCacheEvictionManager ?
+            ((GridCacheEvictionManager)evicts).getEvictionPolicy() : null;
+
+        return plc instanceof HotTierEvictionPolicy ? (HotTierEvictionPolicy<?, ?>)plc : null;
+    }
+
+    /**
+     * @param ignite Local node.
+     * @param cacheName Cache name.
+     * @return Tier metrics of the cache on local node.
+     */
+    public static TierMetrics metrics(Ignite ignite, String cacheName) {
+        HotTierEvictionPolicy<?, ?> hot = hotTier(ignite, cacheName);
+
+        String region = ((IgniteEx)ignite).cachex(cacheName).configuration().getDataRegionName();
+
+        if (region == null)
+            region = DataStorageConfiguration.DFLT_DATA_REG_DEFAULT_NAME;
+
+        return new TierMetrics(hot,
+            ((IgniteEx)ignite).context().metric().registry(
+                MetricUtils.metricName(DataRegionMetricsImpl.DATAREGION_METRICS_PREFIX, region)),
+            ignite.configuration().getDataStorageConfiguration().getPageSize());
+    }
+}
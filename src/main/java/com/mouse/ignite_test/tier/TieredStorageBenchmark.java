@@ -0,0 +1,245 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.tier;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import com.mouse.ignite_test.cluster.ClusterHarness;
+import com.mouse.ignite_test.model.Person;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.IgniteDataStreamer;
+import org.apache.ignite.Ignition;
+import org.apache.ignite.cache.affinity.AffinityKey;
+import org.apache.ignite.cluster.ClusterState;
+import org.apache.ignite.configuration.IgniteConfiguration;
+
+/**
+ * Measures read latency of a skewed workload over persons stored in more data than fits in memory.
+ * <p>
+ * One node holds two persistent caches with the same persons and the same memory budget:
+ * <ul>
+ *     <li>tiered: hot tier of {@link HotTierEvictionPolicy} plus the rest of the budget as warm tier,</li>
+ *     <li>warm/cold: the whole budget as warm tier, no on-heap entries.</li>
+ * </ul>
+ * Persons are loaded until the tiered region holds {@code ratio} times the budget, then each cache
+ * serves the same sequence of Zipf-distributed reads, once to warm up and once measured. Reports
+ * latency percentiles and per-tier metrics of the measured run.
+ * <p>
+ * Hot tier size is counted in serialized bytes, as by Ignite's own eviction policies; on-heap
+ * entries take more heap than that. Checkpoint buffers are not counted in the budget.
+ * <p>
+ * Arguments (all optional, positional): memory budget in MB (default {@code 64}), data to memory ratio
+ * (default {@code 5}), reads (default {@code 1000000}), Zipf exponent (default {@code 0.99}), hot tier share
+ * of the budget (default {@code 0.25}).
+ */
+public class TieredStorageBenchmark {
+    /** Tiered cache and region. */
+    private static final String TIERED = "PersonTiered";
+
+    /** Warm/cold cache and region. */
+    private static final String WARM_COLD = "PersonWarmCold";
+
+    /** Persons per load chunk. */
+    private static final int CHUNK = 20_000;
+
+    /** Organizations. */
+    private static final int ORGS = 100;
+
+    /**
+     * Executes benchmark.
+     *
+     * @param args Command line arguments, see class description.
+     * @throws Exception If failed.
+     */
+    public static void main(String[] args) throws Exception {
+        long budget = (args.length > 0 ? Long.parseLong(args[0]) : 64) << 20;
+        double ratio = args.length > 1 ? Double.parseDouble(args[1]) : 5;
+        int reads = args.length > 2 ? Integer.parseInt(args[2]) : 1_000_000;
+        double skew = args.length > 3 ? Double.parseDouble(args[3]) : 0.99;
+        double hotShare = args.length > 4 ? Double.parseDouble(args[4]) : 0.25;
+
+        long hotSize = (long)(budget * hotShare);
+
+        Path dir = Files.createTempDirectory("person-tiers");
+
+        IgniteConfiguration cfg = ClusterHarness.configuration("tier-bench").setWorkDirectory(dir.toString());
+
+        cfg.getDataStorageConfiguration().setDataRegionConfigurations(
+            TieredStorage.dataRegion(TIERED, budget - hotSize),
+            TieredStorage.dataRegion(WARM_COLD, budget));
+
+        try (Ignite ignite = Ignition.start(cfg)) {
+            ignite.cluster().state(ClusterState.ACTIVE);
+
+            // Count bound only sizes the frequency sketch, memory bound is what limits the tier.
+            IgniteCache<AffinityKey<Long>, Person> tiered = ignite.getOrCreateCache(
+                TieredStorage.personCacheConfiguration(TIERED, TIERED, (int)(hotSize / 64), hotSize));
+
+            IgniteCache<AffinityKey<Long>, Person> warmCold = ignite.getOrCreateCache(
+                TieredStorage.personCacheConfiguration(WARM_COLD, WARM_COLD, 0, 0));
+
+            int persons = load(ignite, (long)(budget * ratio));
+
+            TierMetrics loaded = TieredStorage.metrics(ignite, TIERED);
+
+            System.out.println();
+            System.out.printf(">>> Memory budget %,d B, hot tier %,d B; loaded %,d persons, %,d B of pages " +
+                "(%.1fx budget)%n", budget, hotSize, persons, loaded.totalSize(), (double)loaded.totalSize() / budget);
+
+            int[] workload = zipf(persons, reads, skew, 42);
+
+            for (IgniteCache<AffinityKey<Long>, Person> cache : Arrays.asList(tiered, warmCold)) {
+                String name = cache.getName();
+
+                run(cache, workload, null);
+
+                TierMetrics before = TieredStorage.metrics(ignite, name);
+
+                long[] lat = new long[reads];
+
+                long time = run(cache, workload, lat);
+
+                TierMetrics m = TieredStorage.metrics(ignite, name).minus(before);
+
+                Arrays.sort(lat);
+
+                System.out.printf(">>> %-15s %,9.0f reads/s, latency us: p50 %,7.1f, p90 %,7.1f, p99 %,8.1f, " +
+                        "p99.9 %,8.1f, max %,9.1f%n", name, reads * 1e9 / time, lat[reads / 2] / 1e3,
+                    lat[(int)(reads * 0.9)] / 1e3, lat[(int)(reads * 0.99)] / 1e3, lat[(int)(reads * 0.999)] / 1e3,
+                    lat[reads - 1] / 1e3);
+                System.out.printf(">>>   hot: %,d entries (%,d B), hits %.1f%%, promoted %,d, demoted %,d, " +
+                        "not promoted %,d%n", m.hotEntries(), m.hotSize(), 100.0 * m.hotHits() / reads, m.promotions(),
+                    m.demotions(), m.rejections());
+                System.out.printf(">>>   warm: %,d B in memory; cold: pages promoted %,d (%.3f per read), " +
+                        "demoted %,d, written %,d%n", m.warmSize(), m.pagesPromoted(), (double)m.pagesPromoted() / reads,
+                    m.pagesDemoted(), m.pagesWritten());
+            }
+        }
+        finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                for (Path p : (Iterable<Path>)files.sorted(Comparator.reverseOrder())::iterator)
+                    Files.delete(p);
+            }
+        }
+    }
+
+    /**
+     * Loads the same persons into both caches until tiered region reaches the size.
+     *
+     * @param ignite Ignite.
+     * @param size Size of pages to reach.
+     * @return Number of persons loaded.
+     */
+    private static int load(Ignite ignite, long size) {
+        Random r = new Random(42);
+
+        int persons = 0;
+
+        try (IgniteDataStreamer<AffinityKey<Long>, Person> tiered = ignite.dataStreamer(TIERED);
+             IgniteDataStreamer<AffinityKey<Long>, Person> warmCold = ignite.dataStreamer(WARM_COLD)) {
+            while (TieredStorage.metrics(ignite, TIERED).totalSize() < size) {
+                for (int i = 0; i < CHUNK; i++) {
+                    Person p = ClusterHarness.person(++persons, ORGS, r);
+
+                    tiered.addData(p.key(), p);
+                    warmCold.addData(p.key(), p);
+                }
+
+                tiered.flush();
+                warmCold.flush();
+            }
+        }
+
+        return persons;
+    }
+
+    /**
+     * @param cache Cache.
+     * @param workload Person IDs to read.
+     * @param lat Latencies to fill, nanoseconds, or {@code null}.
+     * @return Total time, nanoseconds.
+     */
+    private static long run(IgniteCache<AffinityKey<Long>, Person> cache, int[] workload, long[] lat) {
+        long start = System.nanoTime();
+
+        for (int i = 0; i < workload.length; i++) {
+            long id = workload[i];
+
+            long t = System.nanoTime();
+
+            Person p = cache.get(new AffinityKey<>(id, 1 + id % ORGS));
+
+            if (lat != null)
+                lat[i] = System.nanoTime() - t;
+
+            if (p == null || p.id != id)
+                throw new IllegalStateException("Unexpected person " + id + ": " + p);
+        }
+
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * @param persons Number of persons.
+     * @param reads Number of reads.
+     * @param skew Zipf exponent.
+     * @param seed Random seed.
+     * @return Person IDs where the ID of rank {@code k} is read with probability proportional to {@code 1 / k^skew}.
+     * Ranks are assigned to IDs at random, so popular persons are spread over pages.
+     */
+    private static int[] zipf(int persons, int reads, double skew, long seed) {
+        Random r = new Random(seed);
+
+        double[] cdf = new double[persons];
+
+        double sum = 0;
+
+        for (int k = 0; k < persons; k++)
+            cdf[k] = sum += 1 / Math.pow(k + 1, skew);
+
+        int[] ids = new int[persons];
+
+        for (int i = 0; i < persons; i++)
+            ids[i] = i + 1;
+
+        for (int i = persons - 1; i > 0; i--) {
+            int j = r.nextInt(i + 1);
+            int tmp = ids[i];
+
+            ids[i] = ids[j];
+            ids[j] = tmp;
+        }
+
+        int[] res = new int[reads];
+
+        for (int i = 0; i < reads; i++) {
+            int k = Arrays.binarySearch(cdf, r.nextDouble() * sum);
+
+            res[i] = ids[Math.min(k < 0 ? -k - 1 : k, persons - 1)];
+        }
+
+        return res;
+    }
+}
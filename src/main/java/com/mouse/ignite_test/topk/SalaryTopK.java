@@ -0,0 +1,293 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.topk;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import javax.cache.Cache;
+
+import com.mouse.ignite_test.CacheQueryExample;
+import com.mouse.ignite_test.model.Person;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.cache.CachePeekMode;
+import org.apache.ignite.cache.query.IndexQuery;
+import org.apache.ignite.cache.query.IndexQueryCriterion;
+import org.apache.ignite.cache.query.QueryCursor;
+import org.apache.ignite.cache.query.SqlFieldsQuery;
+import org.apache.ignite.lang.IgniteCallable;
+import org.apache.ignite.resources.IgniteInstanceResource;
+
+import static org.apache.ignite.cache.query.IndexQueryCriteriaBuilder.between;
+import static org.apache.ignite.cache.query.IndexQueryCriteriaBuilder.eq;
+import static org.apache.ignite.cache.query.IndexQueryCriteriaBuilder.gte;
+
+/**
+ * Top-K salary rankings computed next to the data.
+ * <p>
+ * {@link IndexQuery} walks indexes in ascending order only, so every node walks the
+ * {@code salary} index (or {@link Person#ORG_SALARY_IDX} for a single organization) top-down in
+ * windows: {@code [t1, +inf)}, then {@code [t2, t1)}, and so on, with windows growing geometrically.
+ * Rows go through a bounded min-heap of size K kept in binary form. As soon as the heap is full
+ * after a window, no row below that window can enter it and the node stops. The caller merges
+ * the per-node heaps into the final ranking.
+ * <p>
+ * Ties at the K-th salary are broken arbitrarily.
+ */
+public class SalaryTopK {
+    /** Ignite. */
+    private final Ignite ignite;
+
+    /**
+     * @param ignite Ignite.
+     */
+    public SalaryTopK(Ignite ignite) {
+        this.ignite = ignite;
+    }
+
+    /**
+     * @param k Number of persons.
+     * @return Top {@code k} earners overall, highest salary first.
+     */
+    public List<Person> topEarners(int k) {
+        return execute(null, k);
+    }
+
+    /**
+     * @param orgId Organization ID.
+     * @param k Number of persons.
+     * @return Top {@code k} earners of the organization, highest salary first.
+     */
+    public List<Person> topEarners(long orgId, int k) {
+        return execute(orgId, k);
+    }
+
+    /**
+     * @param orgId Organization ID or {@code null} for all persons.
+     * @param k Number of persons.
+     * @return Top {@code k} earners, highest salary first.
+     */
+    private List<Person> execute(Long orgId, int k) {
+        if (k <= 0)
+            return new ArrayList<>();
+
+        // Salary domain is cheap to get: H2 answers min/max from the salary index.
+        List<?> range = ignite.cache(CacheQueryExample.PERSON_CACHE)
+            .query(new SqlFieldsQuery("select min(salary), max(salary) from Person")).getAll().get(0);
+
+        if (range.get(0) == null)
+            return new ArrayList<>();
+
+        Collection<List<Person>> parts = ignite.compute(ignite.cluster().forDataNodes(CacheQueryExample.PERSON_CACHE))
+            .broadcast(new LocalTopKJob(orgId, k, ((Number)range.get(0)).doubleValue(),
+                ((Number)range.get(1)).doubleValue()));
+
+        // Merge per-node rankings, each already sorted by salary descending.
+        PriorityQueue<Cursor> heads = new PriorityQueue<>(Comparator.comparingDouble((Cursor c) -> -c.head().salary));
+
+        for (List<Person> part : parts) {
+            if (!part.isEmpty())
+                heads.add(new Cursor(part));
+        }
+
+        List<Person> res = new ArrayList<>(k);
+
+        while (res.size() < k && !heads.isEmpty()) {
+            Cursor c = heads.poll();
+
+            res.add(c.head());
+
+            if (c.advance())
+                heads.add(c);
+        }
+
+        return res;
+    }
+
+    /**
+     * Position in a per-node ranking.
+     */
+    private static class Cursor {
+        /** Ranking. */
+        private final List<Person> list;
+
+        /** Current index. */
+        private int idx;
+
+        /**
+         * @param list Ranking.
+         */
+        Cursor(List<Person> list) {
+            this.list = list;
+        }
+
+        /**
+         * @return Current person.
+         */
+        Person head() {
+            return list.get(idx);
+        }
+
+        /**
+         * @return {@code False} if ranking is exhausted.
+         */
+        boolean advance() {
+            return ++idx < list.size();
+        }
+    }
+
+    /**
+     * Heap entry.
+     */
+    private static class Ranked {
+        /** Salary. */
+        private final double salary;
+
+        /** Person in binary form. */
+        private final BinaryObject person;
+
+        /**
+         * @param salary Salary.
+         * @param person Person.
+         */
+        Ranked(double salary, BinaryObject person) {
+            this.salary = salary;
+            this.person = person;
+        }
+    }
+
+    /**
+     * Computes top-K over primary entries of the local node.
+     */
+    private static class LocalTopKJob implements IgniteCallable<List<Person>> {
+        /** */
+        private static final long serialVersionUID = 0L;
+
+        /** Organization ID or {@code null}. */
+        private final Long orgId;
+
+        /** K. */
+        private final int k;
+
+        /** Min salary in cache. */
+        private final double min;
+
+        /** Max salary in cache. */
+        private final double max;
+
+        /** Local Ignite instance. */
+        @IgniteInstanceResource
+        private transient Ignite ignite;
+
+        /**
+         * @param orgId Organization ID or {@code null}.
+         * @param k K.
+         * @param min Min salary in cache.
+         * @param max Max salary in cache.
+         */
+        LocalTopKJob(Long orgId, int k, double min, double max) {
+            this.orgId = orgId;
+            this.k = k;
+            this.min = min;
+            this.max = max;
+        }
+
+        /** {@inheritDoc} */
+        @Override public List<Person> call() {
+            IgniteCache<BinaryObject, BinaryObject> cache =
+                ignite.cache(CacheQueryExample.PERSON_CACHE).withKeepBinary();
+
+            long locSize = orgId == null ? cache.localSize(CachePeekMode.PRIMARY) : localOrgSize(cache);
+
+            if (locSize == 0)
+                return new ArrayList<>();
+
+            PriorityQueue<Ranked> heap = new PriorityQueue<>(k + 1, Comparator.comparingDouble(r -> r.salary));
+
+            // First window is sized to hold about K rows if salaries are uniform.
+            double width = Math.max(1, (max - min) * k / locSize);
+            double hi = Double.POSITIVE_INFINITY;
+            double lo = max - width;
+
+            while (true) {
+                List<IndexQueryCriterion> criteria = new ArrayList<>(2);
+
+                if (orgId != null)
+                    criteria.add(eq("orgId", orgId));
+
+                criteria.add(hi == Double.POSITIVE_INFINITY ? gte("salary", lo) : between("salary", lo, hi));
+
+                IndexQuery<BinaryObject, BinaryObject> qry = new IndexQuery<BinaryObject, BinaryObject>(
+                    Person.class.getName(), orgId != null ? Person.ORG_SALARY_IDX : null).setCriteria(criteria);
+
+                qry.setLocal(true);
+
+                try (QueryCursor<Cache.Entry<BinaryObject, BinaryObject>> cur = cache.query(qry)) {
+                    for (Cache.Entry<BinaryObject, BinaryObject> e : cur) {
+                        double salary = e.getValue().<Double>field("salary");
+
+                        // Upper bound is inclusive in between(), those rows were seen in previous window.
+                        if (salary >= hi)
+                            continue;
+
+                        if (heap.size() < k)
+                            heap.add(new Ranked(salary, e.getValue()));
+                        else if (salary > heap.peek().salary) {
+                            heap.poll();
+                            heap.add(new Ranked(salary, e.getValue()));
+                        }
+                    }
+                }
+
+                if (heap.size() == k || lo <= min)
+                    break;
+
+                hi = lo;
+                width *= 2;
+                lo = Math.max(min, hi - width);
+            }
+
+            List<Person> res = new ArrayList<>(heap.size());
+
+            while (!heap.isEmpty())
+                res.add(heap.poll().person.deserialize());
+
+            // Heap yields ascending salaries.
+            Collections.reverse(res);
+
+            return res;
+        }
+
+        /**
+         * @param cache Persons cache.
+         * @return Number of local persons in the organization, counted over the {@code orgId} index.
+         */
+        private long localOrgSize(IgniteCache<BinaryObject, BinaryObject> cache) {
+            SqlFieldsQuery qry = new SqlFieldsQuery("select count(*) from Person where orgId = ?").setArgs(orgId);
+
+            qry.setLocal(true);
+
+            return ((Number)cache.query(qry).getAll().get(0).get(0)).longValue();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.topk;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.mouse.ignite_test.cluster.ClusterHarness;
+import com.mouse.ignite_test.model.Person;
+import lombok.val;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.cache.query.SqlFieldsQuery;
+import org.springframework.util.StopWatch;
+
+/**
+ * Compares {@link SalaryTopK} with {@code ORDER BY salary DESC LIMIT K} for K = 10, 100 and 1000,
+ * overall and within one organization.
+ * <p>
+ * Arguments (all optional, positional): nodes (default {@code 2}), persons (default {@code 10000000}),
+ * organizations (default {@code 100}), runs (default {@code 5}). Ten million persons need several
+ * gigabytes: raise {@code -Xmx} and {@code -Dignite.test.regionSize} accordingly.
+ */
+public class SalaryTopKBenchmark {
+    /** Values of K. */
+    private static final int[] KS = {10, 100, 1000};
+
+    /**
+     * Executes benchmark.
+     *
+     * @param args Command line arguments, see class description.
+     */
+    public static void main(String[] args) {
+        int nodes = args.length > 0 ? Integer.parseInt(args[0]) : 2;
+        int persons = args.length > 1 ? Integer.parseInt(args[1]) : 10_000_000;
+        int orgs = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        int runs = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+
+        List<Ignite> cluster = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < nodes; i++)
+                cluster.add(ClusterHarness.startNode("topk-" + i));
+
+            Ignite ignite = cluster.get(0);
+
+            IgniteCache<?, ?> cache = ignite.getOrCreateCache(ClusterHarness.personCacheConfiguration());
+
+            ClusterHarness.loadPersons(ignite, persons, orgs, 42);
+
+            val topK = new SalaryTopK(ignite);
+            val sw = new StopWatch();
+
+            for (int k : KS) {
+                // Warm up and check both paths agree on salaries.
+                check(topK.topEarners(k), sql(cache, null, k));
+                check(topK.topEarners(1, k), sql(cache, 1L, k));
+
+                sw.start("top " + k + " overall, SalaryTopK");
+                for (int i = 0; i < runs; i++)
+                    topK.topEarners(k);
+                sw.stop();
+
+                sw.start("top " + k + " overall, SQL order by limit");
+                for (int i = 0; i < runs; i++)
+                    sql(cache, null, k);
+                sw.stop();
+
+                sw.start("top " + k + " per org, SalaryTopK");
+                for (int i = 0; i < runs; i++)
+                    topK.topEarners(1 + i % orgs, k);
+                sw.stop();
+
+                sw.start("top " + k + " per org, SQL order by limit");
+                for (int i = 0; i < runs; i++)
+                    sql(cache, 1L + i % orgs, k);
+                sw.stop();
+            }
+
+            System.out.println();
+            System.out.println(">>> Top-K over " + persons + " persons on " + nodes + " node(s), " + runs + " runs each:");
+            System.out.println(sw.prettyPrint());
+        }
+        finally {
+            for (int i = cluster.size() - 1; i >= 0; i--)
+                cluster.get(i).close();
+        }
+    }
+
+    /**
+     * @param cache Persons cache.
+     * @param orgId Organization ID or {@code null}.
+     * @param k K.
+     * @return Top {@code k} earners, highest salary first. Whole persons are selected, as
+     * {@link SalaryTopK} returns them, so both paths ship the same rows.
+     */
+    private static List<Person> sql(IgniteCache<?, ?> cache, Long orgId, int k) {
+        SqlFieldsQuery qry = orgId == null ?
+            new SqlFieldsQuery("select _val from Person order by salary desc limit ?").setArgs(k) :
+            new SqlFieldsQuery("select _val from Person where orgId = ? order by salary desc limit ?").setArgs(orgId, k);
+
+        List<Person> res = new ArrayList<>(k);
+
+        for (List<?> row : cache.query(qry))
+            res.add((Person)row.get(0));
+
+        return res;
+    }
+
+    /**
+     * Compares salaries only: persons with equal salaries may be ordered differently.
+     *
+     * @param top Result of {@link SalaryTopK}.
+     * @param exp Result of SQL.
+     */
+    private static void check(List<Person> top, List<Person> exp) {
+        List<Double> salaries = salaries(top);
+        List<Double> expSalaries = salaries(exp);
+
+        if (!salaries.equals(expSalaries))
+            throw new IllegalStateException("Top-K mismatch [expected=" + expSalaries + ", actual=" + salaries + ']');
+    }
+
+    /**
+     * @param persons Persons.
+     * @return Their salaries, in the same order.
+     */
+    private static List<Double> salaries(List<Person> persons) {
+        List<Double> res = new ArrayList<>(persons.size());
+
+        for (Person p : persons)
+            res.add(p.salary);
+
+        return res;
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.util;
+
+import java.util.Arrays;
+
+/**
+ * Map from primitive {@code long} keys to objects, for build sides of local joins.
+ * <p>
+ * Open addressing with linear probing over parallel key and value arrays, so neither keys
+ * nor entries are boxed. Removal is not supported. Not thread safe.
+ *
+ * @param <V> Value type.
+ */
+public class LongHashMap<V> {
+    /** Load factor. */
+    private static final float LOAD_FACTOR = 0.6f;
+
+    /** Marker of a free slot. */
+    private static final long FREE = 0;
+
+    /** Keys, {@link #FREE} marks an empty slot. */
+    private long[] keys;
+
+    /** Values. */
+    private Object[] vals;
+
+    /** Whether {@link #FREE} itself is present as a key. */
+    private boolean hasFreeKey;
+
+    /** Value mapped to {@link #FREE} key. */
+    private V freeVal;
+
+    /** Number of mappings. */
+    private int size;
+
+    /** Size at which table grows. */
+    private int threshold;
+
+    /**
+     * Creates map with default capacity.
+     */
+    public LongHashMap() {
+        this(16);
+    }
+
+    /**
+     * @param expSize Expected number of mappings.
+     */
+    public LongHashMap(int expSize) {
+        int cap = Integer.highestOneBit(Math.max(4, (int)(expSize / LOAD_FACTOR)) - 1) << 1;
+
+        keys = new long[cap];
+        vals = new Object[cap];
+        threshold = (int)(cap * LOAD_FACTOR);
+    }
+
+    /**
+     * @param key Key.
+     * @param val Value.
+     * @return Previous value or {@code null}.
+     */
+    public V put(long key, V val) {
+        if (key == FREE) {
+            V old = freeVal;
+
+            if (!hasFreeKey)
+                size++;
+
+            hasFreeKey = true;
+            freeVal = val;
+
+            return old;
+        }
+
+        int mask = keys.length - 1;
+
+        for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+            if (keys[i] == FREE) {
+                keys[i] = key;
+                vals[i] = val;
+
+                if (++size > threshold)
+                    rehash();
+
+                return null;
+            }
+
+            if (keys[i] == key) {
+                V old = value(i);
+
+                vals[i] = val;
+
+                return old;
+            }
+        }
+    }
+
+    /**
+     * @param key Key.
+     * @return Value or {@code null} if there is no mapping for the key.
+     */
+    public V get(long key) {
+        if (key == FREE)
+            return freeVal;
+
+        int mask = keys.length - 1;
+
+        for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+            if (keys[i] == key)
+                return value(i);
+
+            if (keys[i] == FREE)
+                return null;
+        }
+    }
+
+    /**
+     * @param key Key.
+     * @return {@code True} if map contains mapping for the key.
+     */
+    public boolean containsKey(long key) {
+        if (key == FREE)
+            return hasFreeKey;
+
+        int mask = keys.length - 1;
+
+        for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+            if (keys[i] == key)
+                return true;
+
+            if (keys[i] == FREE)
+                return false;
+        }
+    }
+
+    /**
+     * @return Number of mappings.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return {@code True} if map is empty.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Iterates over all mappings in unspecified order.
+     *
+     * @param visitor Visitor.
+     */
+    public void forEach(Visitor<? super V> visitor) {
+        if (hasFreeKey)
+            visitor.visit(FREE, freeVal);
+
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE)
+                visitor.visit(keys[i], value(i));
+        }
+    }
+
+    /**
+     * Removes all mappings, keeping the allocated table.
+     */
+    public void clear() {
+        Arrays.fill(keys, FREE);
+        Arrays.fill(vals, null);
+
+        hasFreeKey = false;
+        freeVal = null;
+        size = 0;
+    }
+
+    /**
+     * Doubles table capacity.
+     */
+    private void rehash() {
+        long[] oldKeys = keys;
+        Object[] oldVals = vals;
+
+        keys = new long[oldKeys.length << 1];
+        vals = new Object[oldKeys.length << 1];
+        threshold = (int)(keys.length * LOAD_FACTOR);
+
+        int mask = keys.length - 1;
+
+        for (int j = 0; j < oldKeys.length; j++) {
+            long key = oldKeys[j];
+
+            if (key == FREE)
+                continue;
+
+            int i = slot(key, mask);
+
+            while (keys[i] != FREE)
+                i = (i + 1) & mask;
+
+            keys[i] = key;
+            vals[i] = oldVals[j];
+        }
+    }
+
+    /**
+     * @param i Slot.
+     * @return Value in slot.
+     */
+    @SuppressWarnings("unchecked")
+    private V value(int i) {
+        return (V)vals[i];
+    }
+
+    /**
+     * Fibonacci hashing spreads sequential IDs over the whole table.
+     *
+     * @param key Key.
+     * @param mask Table mask.
+     * @return Home slot for the key.
+     */
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+
+        return (int)(h ^ (h >>> 32)) & mask;
+    }
+
+    /**
+     * Mapping visitor.
+     *
+     * @param <V> Value type.
+     */
+    @FunctionalInterface
+    public interface Visitor<V> {
+        /**
+         * @param key Key.
+         * @param val Value.
+         */
+        void visit(long key, V val);
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.cdc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link ChangeLogWriter}.
+ */
+public class ChangeLogWriterTest {
+    /** Log directory. */
+    @TempDir
+    Path dir;
+
+    /**
+     * Incomplete last record is truncated on open and its sequence number is reused.
+     *
+     * @throws IOException If failed.
+     */
+    @Test
+    public void testTruncatedTail() throws IOException {
+        try (ChangeLogWriter w = new ChangeLogWriter(dir, ChangeLogWriter.MAX_SEGMENT_SIZE, false)) {
+            assertEquals(3, w.append(batch(3, 100)));
+        }
+
+        Path seg = ChangeLogWriter.segments(dir).get(0);
+
+        try (FileChannel ch = FileChannel.open(seg, StandardOpenOption.WRITE)) {
+            ch.truncate(ch.size() - 10);
+        }
+
+        try (ChangeLogWriter w = new ChangeLogWriter(dir, ChangeLogWriter.MAX_SEGMENT_SIZE, false)) {
+            assertEquals(2, w.lastSequence());
+            assertEquals(4, w.append(batch(2, 100)));
+        }
+
+        assertEquals(Collections.singletonList(Arrays.asList(1L, 2L, 3L, 4L)), sequences());
+    }
+
+    /**
+     * Record with a broken checksum and everything after it is truncated on open.
+     *
+     * @throws IOException If failed.
+     */
+    @Test
+    public void testCorruptedTail() throws IOException {
+        try (ChangeLogWriter w = new ChangeLogWriter(dir, ChangeLogWriter.MAX_SEGMENT_SIZE, false)) {
+            w.append(batch(3, 100));
+        }
+
+        Path seg = ChangeLogWriter.segments(dir).get(0);
+
+        try (FileChannel ch = FileChannel.open(seg, StandardOpenOption.WRITE)) {
+            ch.write(ByteBuffer.wrap(new byte[] {(byte)0xFF}), ch.size() - 50);
+        }
+
+        try (ChangeLogWriter w = new ChangeLogWriter(dir, ChangeLogWriter.MAX_SEGMENT_SIZE, false)) {
+            assertEquals(2, w.lastSequence());
+        }
+    }
+
+    /**
+     * Segments roll over at the size limit, are named by their first sequence number and continue
+     * numbering after reopen.
+     *
+     * @throws IOException If failed.
+     */
+    @Test
+    public void testSegmentRollover() throws IOException {
+        try (ChangeLogWriter w = new ChangeLogWriter(dir, 1024, false)) {
+            for (int i = 0; i < 10; i++)
+                w.append(batch(3, 100));
+
+            assertEquals(30, w.lastSequence());
+        }
+
+        try (ChangeLogWriter w = new ChangeLogWriter(dir, 1024, false)) {
+            assertEquals(30, w.lastSequence());
+            assertEquals(33, w.append(batch(3, 100)));
+        }
+
+        List<Path> segs = ChangeLogWriter.segments(dir);
+        List<List<Long>> seqs = sequences();
+
+        assertTrue(segs.size() > 1, "Expected several segments: " + segs);
+
+        long next = 1;
+
+        for (int i = 0; i < segs.size(); i++) {
+            assertEquals(ChangeLogWriter.baseSequence(segs.get(i)), seqs.get(i).get(0));
+
+            // Segment exceeds the limit by at most one batch.
+            assertTrue(Files.size(segs.get(i)) <= 1024 + 3 * 200, "Segment too large: " + segs.get(i));
+
+            for (long seq : seqs.get(i))
+                assertEquals(next++, seq);
+        }
+
+        assertEquals(34, next);
+    }
+
+    /**
+     * @return Sequence numbers of the records of each segment.
+     * @throws IOException If failed.
+     */
+    private List<List<Long>> sequences() throws IOException {
+        List<List<Long>> res = new ArrayList<>();
+
+        CRC32 crc = new CRC32();
+
+        for (Path seg : ChangeLogWriter.segments(dir)) {
+            ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(seg));
+
+            List<Long> seqs = new ArrayList<>();
+
+            int pos = 0;
+
+            for (long seq; (seq = ChangeLogWriter.readSequence(buf, pos, crc)) >= 0; pos += 4 + buf.getInt(pos) + 4)
+                seqs.add(seq);
+
+            assertEquals(buf.limit(), pos, "Incomplete record in " + seg);
+
+            res.add(seqs);
+        }
+
+        return res;
+    }
+
+    /**
+     * @param size Number of changes.
+     * @param valLen Value length.
+     * @return Batch of changes.
+     */
+    private static List<ChangeLogWriter.Change> batch(int size, int valLen) {
+        List<ChangeLogWriter.Change> res = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            res.add(new ChangeLogWriter.Change(i, i, "Person", ChangeRecord.Operation.PUT, new byte[] {(byte)i},
+                new byte[valLen]));
+        }
+
+        return res;
+    }
+}
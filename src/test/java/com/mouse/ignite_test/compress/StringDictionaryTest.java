@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.compress;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for splitting and encoding in {@link StringDictionary}.
+ */
+public class StringDictionaryTest {
+    /**
+     * Trailing digits without leading zeros become the tail.
+     */
+    @Test
+    public void testSplit() {
+        assertEquals(3, StringDictionary.split("Doe12345"));
+        assertEquals(3, StringDictionary.split("Doe"));
+        assertEquals(3, StringDictionary.split("Doe0"));
+        assertEquals(0, StringDictionary.split(""));
+        assertEquals(8, StringDictionary.split("Doe 1st."));
+    }
+
+    /**
+     * Leading zeros of the digits stay in the stem.
+     */
+    @Test
+    public void testSplitLeadingZeros() {
+        assertEquals(5, StringDictionary.split("Doe007"));
+        assertEquals(5, StringDictionary.split("Doe000"));
+        assertEquals(1, StringDictionary.split("00"));
+    }
+
+    /**
+     * String of digits only has an empty stem.
+     */
+    @Test
+    public void testSplitEmptyStem() {
+        assertEquals(0, StringDictionary.split("12345"));
+        assertEquals(0, StringDictionary.split("0"));
+    }
+
+    /**
+     * Tail is limited to the max number of digits, the rest stays in the stem.
+     */
+    @Test
+    public void testSplitLongDigits() {
+        String s = "Doe" + "1234567890123456";
+
+        assertEquals(s.length() - StringDictionary.MAX_TAIL_DIGITS, StringDictionary.split(s));
+    }
+
+    /**
+     * Encoded value holds the code and the tail and restores the string.
+     */
+    @Test
+    public void testEncode() {
+        checkEncode("Doe12345", 7);
+        checkEncode("Doe", 7);
+        checkEncode("Doe0", 7);
+        checkEncode("Doe007", 7);
+        checkEncode("", 7);
+        checkEncode("12345", 7);
+        checkEncode("0", 7);
+        checkEncode("Doe9999999999999", StringDictionary.MAX_CODE);
+        checkEncode("Doe" + "1234567890123456", StringDictionary.MAX_CODE);
+    }
+
+    /**
+     * Value without a tail differs from the same stem with tail {@code 0}.
+     */
+    @Test
+    public void testEncodeNoTail() {
+        long noTail = StringDictionary.encode("Doe", 3, 1);
+        long zero = StringDictionary.encode("Doe0", 3, 1);
+
+        assertEquals(-1, StringDictionary.tail(noTail));
+        assertEquals(0, StringDictionary.tail(zero));
+        assertTrue(noTail != zero);
+    }
+
+    /**
+     * @param s String.
+     * @param code Stem code to encode with.
+     */
+    private static void checkEncode(String s, int code) {
+        int split = StringDictionary.split(s);
+
+        long val = StringDictionary.encode(s, split, code);
+
+        assertTrue(val > 0, "Encoded value must be positive: " + val);
+        assertEquals(code, StringDictionary.code(val));
+
+        long tail = StringDictionary.tail(val);
+
+        assertEquals(s, s.substring(0, split) + (tail < 0 ? "" : Long.toString(tail)));
+    }
+}
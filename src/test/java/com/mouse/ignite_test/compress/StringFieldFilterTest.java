@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.compress;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for tail prefix matching in {@link StringFieldFilter}.
+ */
+public class StringFieldFilterTest {
+    /**
+     * Tail matches prefix digits by its leading digits.
+     */
+    @Test
+    public void testTailStartsWith() {
+        assertTrue(StringFieldFilter.tailStartsWith(12345, 1, 1));
+        assertTrue(StringFieldFilter.tailStartsWith(12345, 123, 3));
+        assertTrue(StringFieldFilter.tailStartsWith(12345, 12345, 5));
+        assertFalse(StringFieldFilter.tailStartsWith(12345, 13, 2));
+        assertFalse(StringFieldFilter.tailStartsWith(12345, 123456, 6));
+        assertTrue(StringFieldFilter.tailStartsWith(9_999_999_999_999L, 9, 1));
+    }
+
+    /**
+     * Value without a tail matches no digits.
+     */
+    @Test
+    public void testNoTail() {
+        assertFalse(StringFieldFilter.tailStartsWith(-1, 1, 1));
+        assertFalse(StringFieldFilter.tailStartsWith(-1, 0, 1));
+    }
+
+    /**
+     * Zero prefix matches only the zero tail: other tails have no leading zeros, strings with them
+     * keep the zeros in the stem.
+     */
+    @Test
+    public void testLeadingZero() {
+        assertTrue(StringFieldFilter.tailStartsWith(0, 0, 1));
+        assertFalse(StringFieldFilter.tailStartsWith(7, 0, 1));
+        assertFalse(StringFieldFilter.tailStartsWith(7, 7, 2));
+        assertFalse(StringFieldFilter.tailStartsWith(0, 0, 2));
+    }
+
+    /**
+     * Tail of a string of digits only, with an empty stem, matches the same way.
+     */
+    @Test
+    public void testEmptyStem() {
+        long val = StringDictionary.encode("12345", StringDictionary.split("12345"), 1);
+
+        assertTrue(StringFieldFilter.tailStartsWith(StringDictionary.tail(val), 12, 2));
+        assertFalse(StringFieldFilter.tailStartsWith(StringDictionary.tail(val), 2, 1));
+    }
+}
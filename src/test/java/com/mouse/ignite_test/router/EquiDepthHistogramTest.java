@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mouse.ignite_test.router;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests for {@link EquiDepthHistogram}.
+ */
+public class EquiDepthHistogramTest {
+    /** Values. */
+    private static final int CNT = 100_000;
+
+    /** Max value. */
+    private static final int MAX = 10_000;
+
+    /** Allowed selectivity error. */
+    private static final double EPS = 0.02;
+
+    /**
+     * Exact values are used before buckets are built.
+     */
+    @Test
+    public void testExactBeforeBuckets() {
+        EquiDepthHistogram h = new EquiDepthHistogram(4, 100);
+
+        for (int v = 1; v <= 10; v++)
+            h.add(v);
+
+        h.remove(10);
+
+        assertEquals(9, h.total());
+        assertEquals(3.0 / 9, h.selectivity(1, 3), 1e-9);
+        assertEquals(0, h.selectivity(10, 20), 1e-9);
+    }
+
+    /**
+     * Uniform values give linear selectivity.
+     */
+    @Test
+    public void testUniform() {
+        EquiDepthHistogram h = new EquiDepthHistogram(64, 4096);
+
+        int[] vals = uniform(h);
+
+        assertEquals(CNT, h.total());
+        assertEquals(vals.length, h.total());
+        assertEquals(0.5, h.selectivity(0, MAX / 2 - 1), EPS);
+        assertEquals(0.1, h.selectivity(MAX / 10, 2 * MAX / 10 - 1), EPS);
+    }
+
+    /**
+     * Replacing every value with a shifted one moves the whole distribution.
+     */
+    @Test
+    public void testShiftWithRemoveAndAdd() {
+        EquiDepthHistogram h = new EquiDepthHistogram(64, 4096);
+
+        int[] vals = uniform(h);
+
+        for (int v : vals) {
+            h.remove(v);
+            h.add(v + MAX);
+        }
+
+        assertEquals(CNT, h.total());
+        assertEquals(0, h.selectivity(0, MAX - 1), EPS);
+        assertEquals(0.5, h.selectivity(MAX, MAX + MAX / 2 - 1), EPS);
+        assertEquals(0.25, h.selectivity(MAX + MAX / 2, MAX + 3 * MAX / 4 - 1), EPS);
+    }
+
+    /**
+     * Raising every value by 10% stretches the distribution, as a bulk salary raise does.
+     */
+    @Test
+    public void testRaise() {
+        EquiDepthHistogram h = new EquiDepthHistogram(64, 4096);
+
+        int[] vals = uniform(h);
+
+        for (int v : vals) {
+            h.remove(v);
+            h.add(Math.floor(v * 1.1));
+        }
+
+        assertEquals(CNT, h.total());
+        assertEquals(5000.0 / 11000, h.selectivity(0, 4999), EPS);
+        assertEquals(1000.0 / 11000, h.selectivity(10_000, 10_999), EPS);
+    }
+
+    /**
+     * Removing half of the values keeps selectivity of the other half.
+     */
+    @Test
+    public void testRemoveRange() {
+        EquiDepthHistogram h = new EquiDepthHistogram(64, 4096);
+
+        int[] vals = uniform(h);
+
+        for (int v : vals) {
+            if (v < MAX / 2)
+                h.remove(v);
+        }
+
+        assertEquals(0, h.selectivity(0, MAX / 2 - 1), EPS);
+        assertEquals(0.5, h.selectivity(MAX / 2, 3 * MAX / 4 - 1), EPS);
+    }
+
+    /**
+     * @param h Histogram to add values to.
+     * @return Added values, uniform in {@code [0, MAX)}.
+     */
+    private static int[] uniform(EquiDepthHistogram h) {
+        Random r = new Random(42);
+
+        int[] vals = new int[CNT];
+
+        for (int i = 0; i < CNT; i++)
+            h.add(vals[i] = r.nextInt(MAX));
+
+        return vals;
+    }
+}